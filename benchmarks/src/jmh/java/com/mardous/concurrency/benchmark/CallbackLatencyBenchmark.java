@@ -0,0 +1,42 @@
+package com.mardous.concurrency.benchmark;
+
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncWorker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end latency of a single task: from {@code execute()} on the
+ * calling thread until {@code onSuccess()} runs on the main thread.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CallbackLatencyBenchmark {
+
+    @Benchmark
+    public void submitToOnSuccess() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AsyncWorker.forResult(new AsyncCallable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return Boolean.TRUE;
+            }
+
+            @Override
+            public void onSuccess(Boolean result) {
+                latch.countDown();
+            }
+        }).execute();
+        latch.await();
+    }
+}
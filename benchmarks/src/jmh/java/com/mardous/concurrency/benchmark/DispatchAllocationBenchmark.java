@@ -0,0 +1,115 @@
+package com.mardous.concurrency.benchmark;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncRunnable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+import com.mardous.concurrency.task.ResultTaskBuilder;
+import com.mardous.concurrency.task.TaskBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the memory allocated by the task engine for a single submit, run and
+ * deliver cycle. Run with the {@code gc} profiler and look at {@code gc.alloc.rate.norm}.
+ *
+ * <p>Both the worker and the main thread are replaced by the benchmark thread, so each
+ * operation runs the whole cycle synchronously and nothing allocated by thread hand-offs
+ * (executor queues, wake-ups) is counted. The builders are reused, so what's left is the
+ * task itself and whatever the engine allocates to run it and deliver its callbacks.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchAllocationBenchmark {
+
+    private static final Executor CALLER_EXECUTOR = Runnable::run;
+
+    private MainThreadDispatcher previousDispatcher;
+
+    private ResultTaskBuilder<Integer> resultTask;
+    private TaskBuilder<?> simpleTask;
+    private Blackhole blackhole;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        previousDispatcher = Platform.getMainThreadDispatcher();
+        Platform.setMainThreadDispatcher(new CallerThreadDispatcher());
+
+        final Integer result = 42;
+        resultTask = AsyncWorker.forResult(new AsyncCallable<Integer>() {
+            @Override
+            public Integer call() {
+                return result;
+            }
+
+            @Override
+            public void onSuccess(Integer result) {
+                DispatchAllocationBenchmark.this.blackhole.consume(result);
+            }
+        });
+        resultTask.using(CALLER_EXECUTOR);
+
+        simpleTask = AsyncWorker.simpleTask(new AsyncRunnable() {
+            @Override
+            public void run() {
+            }
+
+            @Override
+            protected void onFinished() {
+                DispatchAllocationBenchmark.this.blackhole.consume(this);
+            }
+        }).using(CALLER_EXECUTOR);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Platform.setMainThreadDispatcher(previousDispatcher);
+    }
+
+    @Benchmark
+    public Object resultTaskCycle() {
+        return resultTask.execute();
+    }
+
+    @Benchmark
+    public Object simpleTaskCycle() {
+        return simpleTask.execute();
+    }
+
+    /**
+     * Runs every action right away on the calling thread.
+     */
+    private static final class CallerThreadDispatcher implements MainThreadDispatcher {
+        @Override
+        public void post(@NonNull Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public void postDelayed(@NonNull Runnable action, long delayMillis) {
+            action.run();
+        }
+
+        @Override
+        public boolean isMainThread() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.mardous.concurrency.benchmark;
+
+import com.mardous.concurrency.ResultFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@link ResultFilter#acceptable(Object)} as the
+ * number of predicates grows.
+ *
+ * <p>In {@link #acceptable()} every predicate accepts the result, so the whole chain is
+ * always evaluated. In {@link #rejectedByLast()} only the last predicate added rejects it,
+ * which the filter is expected to learn and test first.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResultFilterBenchmark {
+
+    @Param({"1", "4", "16", "64"})
+    public int predicates;
+
+    private ResultFilter<Integer> filter;
+    private ResultFilter<Integer> selectiveFilter;
+    private Integer result;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filter = new ResultFilter<>();
+        selectiveFilter = new ResultFilter<>();
+        for (int i = 0; i < predicates; i++) {
+            final int bound = -i;
+            filter.add(value -> value > bound);
+            if (i < predicates - 1) {
+                selectiveFilter.add(value -> value > bound);
+            } else {
+                selectiveFilter.add(value -> value < bound);
+            }
+        }
+        result = 42;
+    }
+
+    @Benchmark
+    public boolean acceptable() {
+        return filter.acceptable(result);
+    }
+
+    @Benchmark
+    public boolean rejectedByLast() {
+        return selectiveFilter.acceptable(result);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mardous.concurrency.benchmark;
+
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncRunnable;
+import com.mardous.concurrency.AsyncWorker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of creating and executing tasks, from {@code execute()}
+ * until {@code onFinished()} is delivered on the main thread.
+ *
+ * <p>Each invocation submits a batch of tasks and waits for all of them, so the
+ * executors and the main thread queue never grow without bounds. Run with the
+ * {@code gc} profiler to get the number of bytes allocated per task
+ * ({@code gc.alloc.rate.norm}).
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SubmissionBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void simpleTask() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            AsyncWorker.simpleTask(new CountingRunnable(latch)).execute();
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void resultTask() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            AsyncWorker.forResult(new CountingCallable(latch, i)).execute();
+        }
+        latch.await();
+    }
+
+    private static final class CountingRunnable extends AsyncRunnable {
+        private final CountDownLatch latch;
+
+        CountingRunnable(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        protected void onFinished() {
+            latch.countDown();
+        }
+    }
+
+    private static final class CountingCallable extends AsyncCallable<Integer> {
+        private final CountDownLatch latch;
+        private final Integer value;
+
+        CountingCallable(CountDownLatch latch, Integer value) {
+            this.latch = latch;
+            this.value = value;
+        }
+
+        @Override
+        public Integer call() {
+            return value;
+        }
+
+        @Override
+        protected void onFinished() {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.mardous.concurrency.task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Task#setState(Task.State)} going through a full
+ * {@code IDLE -> RUNNING -> FINISHED} cycle, with one thread and with
+ * as many threads as available processors, each one driving its own tasks.
+ *
+ * <p>Tasks have no connection, so nothing is posted to the main thread and
+ * only the state machine is measured.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StateTransitionBenchmark {
+
+    private final BareTaskBuilder builder = new BareTaskBuilder();
+
+    @Benchmark
+    @Threads(1)
+    public Task.State uncontended() {
+        return cycle();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Task.State concurrent() {
+        return cycle();
+    }
+
+    private Task.State cycle() {
+        BareTask task = builder.create();
+        task.setState(Task.State.RUNNING);
+        task.setState(Task.State.FINISHED);
+        return task.getState();
+    }
+
+    static final class BareTaskBuilder extends TaskBuilder<BareTask> {
+        BareTaskBuilder() {
+            using(Runnable::run);
+        }
+
+        @Override
+        public BareTask create() {
+            return new BareTask(this);
+        }
+
+        @Override
+        public BareTask execute() {
+            return create().execute();
+        }
+    }
+
+    static final class BareTask extends Task {
+        BareTask(TaskBuilder taskBuilder) {
+            super(taskBuilder, null);
+        }
+
+        @Override
+        public BareTask execute() {
+            setState(State.RUNNING);
+            return this;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return doCancellation(null, mayInterruptIfRunning);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mardous.concurrency;
+
+import com.mardous.concurrency.internal.BatchException;
+import com.mardous.concurrency.task.BatchTask;
+import com.mardous.concurrency.task.BatchTaskBuilder;
+import com.mardous.concurrency.task.TaskConnection;
+
+import java.util.List;
+
+/**
+ * A {@link TaskConnection} that receives the aggregated outcome of a {@link BatchTask}.
+ *
+ * <p>The callbacks of the individual {@link AsyncCallable}s of a batch are never called;
+ * they're all reported here instead.
+ *
+ * @param <T> The result type of the callables of the batch.
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public abstract class AsyncBatchCallback<T> extends TaskConnection {
+
+    /**
+     * Called when every callable of the batch has returned a result without
+     * throwing an exception.
+     *
+     * <p>If the task was cancelled previously, this method will never be called.
+     *
+     * @param results The results of the callables, in the same order they were given.
+     */
+    public void onSuccess(List<T> results) {
+    }
+
+    /**
+     * Called when a callable of the batch returns a result, as long as partial results
+     * were requested with {@link BatchTaskBuilder#streamResults(boolean)}.
+     *
+     * <p>If the task was cancelled previously, this method will never be called.
+     *
+     * @param index  The position of the callable in the batch.
+     * @param result The result of the callable.
+     */
+    public void onItemResult(int index, T result) {
+    }
+
+    /**
+     * Called when a callable of the batch throws an exception, as long as partial results
+     * were requested with {@link BatchTaskBuilder#streamResults(boolean)}.
+     *
+     * <p>If the task was cancelled previously, this method will never be called.
+     *
+     * @param index The position of the callable in the batch.
+     * @param error The exception thrown by the callable.
+     */
+    public void onItemError(int index, Exception error) {
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>When the batch collects errors (see {@link BatchTaskBuilder#failFast(boolean)}),
+     * the given exception is a {@link BatchException} holding the partial results along
+     * with every error. Otherwise, it is the first exception thrown by a callable.
+     */
+    @Override
+    protected void onError(Exception e) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.mardous.concurrency;
+
+import com.mardous.concurrency.internal.Function;
+import com.mardous.concurrency.internal.UnacceptableResultException;
+import com.mardous.concurrency.task.ResultTaskBuilder;
+import com.mardous.concurrency.task.TaskConnection;
+
+/**
+ * A {@link Function} that extends the {@link TaskConnection} {@code class}.
+ * <p>This is intended to be the last stage of a pipeline built with
+ * {@link ResultTaskBuilder#map(AsyncFunction)}: its callbacks receive the
+ * outcome of the whole pipeline, while the intermediate stages never touch
+ * the main thread.
+ *
+ * @param <T> The type of the input of {@link #apply(Object)}
+ * @param <R> The result type of {@link #apply(Object)}
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public abstract class AsyncFunction<T, R> extends TaskConnection implements Function<T, R> {
+
+    /**
+     * Called when the pipeline ending in this function completes without errors.
+     *
+     * <p>If the task was cancelled previously, this method will never be called.
+     *
+     * @param result The result of {@link #apply(Object)}.
+     */
+    public void onSuccess(R result) {
+    }
+
+    /**
+     * Called when the result of {@link #apply(Object)} has not passed the filtering
+     * rules of the pipeline.
+     *
+     * <p>If the task was cancelled previously, this method will never be called.
+     *
+     * <p>The default implementation simply calls
+     * {@link #onError(Exception)} with an {@link UnacceptableResultException}.
+     *
+     * @param result The result of {@link #apply(Object)}.
+     */
+    public void onBadResult(R result) {
+        onError(new UnacceptableResultException(result));
+    }
+}
@@ -0,0 +1,140 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+import com.mardous.concurrency.spi.Platform;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An {@link AsyncCallable} able to publish its progress on the main thread.
+ *
+ * <p>Progress updates are conflated: only the latest value is kept, and there is at most
+ * one delivery pending on the main thread at any time. Deliveries are spaced by a minimum
+ * interval (16 milliseconds by default), except for the final value (when the progress
+ * reaches the max), which is always delivered right away: if a delivery is already waiting
+ * for the interval to end, the final value is delivered on its own and the waiting delivery
+ * stays the pending one.
+ *
+ * @param <T> The result type of method {@link #call()}
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public abstract class AsyncProgressCallable<T> extends AsyncCallable<T> {
+
+    private static final long DEFAULT_MIN_INTERVAL_MILLIS = 16;
+
+    private final long minIntervalNanos;
+
+    private final Object progressLock = new Object();
+    private final AtomicBoolean deliveryPending = new AtomicBoolean();
+    private final Runnable deliverProgress = this::deliverProgress;
+    // Delivers the final value without releasing the pending delivery, if any.
+    private final Runnable deliverFinalProgress = this::deliverLatestProgress;
+
+    // Guarded by progressLock.
+    private long progress;
+    private long max;
+    private long version;
+
+    // Only accessed from the main thread.
+    private long deliveredVersion;
+    private volatile long lastDeliveryNanos;
+
+    public AsyncProgressCallable() {
+        this(DEFAULT_MIN_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param minIntervalMillis The minimum amount of milliseconds between two
+     *                          consecutive calls to {@link #onProgressUpdate(long, long)}.
+     */
+    public AsyncProgressCallable(long minIntervalMillis) {
+        if (minIntervalMillis < 0) {
+            throw new IllegalArgumentException("The minimum interval must not be negative.");
+        }
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+    }
+
+    @Override
+    public void onPreExecute() {
+        updateProgress(0, 0);
+    }
+
+    /**
+     * Used to update the progress.
+     *
+     * <p>This method does not allocate: it only stores the given values, which
+     * replace any other value that has not been delivered yet.
+     *
+     * @param progress The current progress.
+     * @param max      The max progress.
+     */
+    @WorkerThread
+    protected void updateProgress(long progress, long max) {
+        if (isCancelled()) {
+            return;
+        }
+        synchronized (progressLock) {
+            this.progress = progress;
+            this.max = max;
+            this.version++;
+        }
+
+        if (isFinalProgress(progress, max)) {
+            // Never held back, and queued along with the result so it's delivered before it.
+            // A delivery still waiting for the interval remains the pending one until it runs.
+            CallbackDispatcher.getInstance().dispatch(deliveryPending.compareAndSet(false, true)
+                    ? deliverProgress : deliverFinalProgress);
+        } else if (deliveryPending.compareAndSet(false, true)) {
+            long waitNanos = lastDeliveryNanos + minIntervalNanos - System.nanoTime();
+            if (waitNanos <= 0) {
+                CallbackDispatcher.getInstance().dispatch(deliverProgress);
+            } else {
+                Platform.getMainThreadDispatcher()
+                        .postDelayed(deliverProgress, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+            }
+        }
+    }
+
+    @UiThread
+    private void deliverProgress() {
+        deliveryPending.set(false);
+        deliverLatestProgress();
+    }
+
+    @UiThread
+    private void deliverLatestProgress() {
+        long progress, max, version;
+        synchronized (progressLock) {
+            progress = this.progress;
+            max = this.max;
+            version = this.version;
+        }
+        if (version == deliveredVersion || isCancelled()) {
+            return;
+        }
+        // Intermediate values arriving after the task has completed are stale.
+        if (!isRunning() && !isFinalProgress(progress, max)) {
+            return;
+        }
+        deliveredVersion = version;
+        lastDeliveryNanos = System.nanoTime();
+        onProgressUpdate(progress, max);
+    }
+
+    private static boolean isFinalProgress(long progress, long max) {
+        return max > 0 && progress >= max;
+    }
+
+    /**
+     * Called when the progress of this task has been updated using {@link #updateProgress(long, long)}.
+     *
+     * <p>If the task was cancelled previously, this method will never be called.
+     *
+     * @param progress The current progress.
+     * @param max      The max progress.
+     */
+    @UiThread
+    public abstract void onProgressUpdate(long progress, long max);
+}
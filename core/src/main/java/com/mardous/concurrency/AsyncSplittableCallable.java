@@ -0,0 +1,247 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.CallSuper;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An {@link AsyncCallable} whose work can be split in parts that run in parallel,
+ * on a work-stealing pool.
+ *
+ * <p>From {@link #call()}, parts are started with {@link #fork(Callable)} and their results
+ * collected with {@link #join(Fork)}; parts can fork other parts as well. Forks started from
+ * a thread of a {@link java.util.concurrent.ForkJoinPool} are pushed to the queue of that
+ * thread, where idle threads can steal them, so the task should run on the
+ * {@link TaskExecutors#forkJoin() shared work-stealing pool}:
+ * <pre><code>
+ *     AsyncWorker.forResult(new AsyncSplittableCallable&lt;Bitmap&gt;() {
+ *         public Bitmap call() throws Exception {
+ *             List&lt;Tile&gt; tiles = invokeAll(tileDecoders);
+ *             return merge(tiles);
+ *         }
+ *     }).usingForkJoin().execute();
+ * </code></pre>
+ *
+ * <p>The result of {@link #call()} is delivered as usual. Cancelling the task cancels every
+ * fork that has not completed yet, and forks that have not started never run.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+@RequiresApi(21)
+public abstract class AsyncSplittableCallable<T> extends AsyncCallable<T> {
+
+    private final Set<Fork<?>> forks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * Starts running the given part of the work in parallel.
+     *
+     * @param part The part to run.
+     * @return a handle to {@link #join(Fork) join} the part.
+     * @throws CancellationException if the task has been cancelled.
+     */
+    @NonNull
+    @WorkerThread
+    protected final <U> Fork<U> fork(@NonNull Callable<U> part) {
+        Utils.assertNonNull(part, "Part");
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+        return start(new Fork<>(this, part, null));
+    }
+
+    private <U> Fork<U> start(Fork<U> fork) {
+        forks.add(fork);
+        if (ForkJoinTask.inForkJoinPool()) {
+            fork.fork();
+        } else {
+            TaskExecutors.forkJoin().execute(fork);
+        }
+        return fork;
+    }
+
+    /**
+     * Waits for the given part to complete, helping to run other parts meanwhile
+     * when called from a thread of the work-stealing pool, and returns its result.
+     *
+     * @param fork The part to wait for.
+     * @return the result of the part.
+     * @throws CancellationException if the part was cancelled.
+     * @throws Exception             the error thrown by the part, if any.
+     */
+    @WorkerThread
+    protected final <U> U join(@NonNull Fork<U> fork) throws Exception {
+        Utils.assertNonNull(fork, "Fork");
+        try {
+            return fork.join();
+        } catch (ForkException e) {
+            Throwable cause = e;
+            // The pool may wrap the exception again when it's rethrown on another thread.
+            while (cause instanceof ForkException) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    /**
+     * Runs all the given parts in parallel, and returns their results in the same order.
+     * The last part runs on the calling thread. If one of them fails, the ones that have not
+     * completed are cancelled right away, and its error is thrown as soon as the part running
+     * on the calling thread returns, whatever the position of the part that failed.
+     *
+     * @param parts The parts to run.
+     * @return the results of the parts.
+     */
+    @NonNull
+    @WorkerThread
+    protected final <U> List<U> invokeAll(@NonNull Collection<? extends Callable<U>> parts) throws Exception {
+        Utils.assertNonNull(parts, "Parts");
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+        final ForkGroup group = new ForkGroup();
+        List<Fork<U>> started = new ArrayList<>(parts.size());
+        Callable<U> last = null;
+        try {
+            for (Callable<U> part : parts) {
+                if (last != null) {
+                    Fork<U> fork = new Fork<>(this, last, group);
+                    group.add(fork);
+                    started.add(start(fork));
+                }
+                last = part;
+            }
+            U lastResult = last != null ? last.call() : null;
+            List<U> results = new ArrayList<>(parts.size());
+            for (Fork<U> fork : started) {
+                // A fork cancelled because another one failed returns right away.
+                results.add(join(fork));
+            }
+            if (last != null) {
+                results.add(lastResult);
+            }
+            return results;
+        } catch (Exception e) {
+            group.fail(e);
+            throw group.getFailure();
+        }
+    }
+
+    @CallSuper
+    @Override
+    protected void onCancelRequested(boolean mayInterruptIfRunning) {
+        for (Fork<?> fork : forks) {
+            fork.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    /**
+     * A part of the work of an {@link AsyncSplittableCallable}, running in parallel.
+     */
+    public static final class Fork<U> extends RecursiveTask<U> {
+        private static final long serialVersionUID = 1L;
+
+        private final AsyncSplittableCallable<?> owner;
+        private final Callable<U> part;
+        // The group of the parts started by invokeAll(), if this is one of them.
+        @Nullable
+        private final ForkGroup group;
+
+        Fork(AsyncSplittableCallable<?> owner, Callable<U> part, @Nullable ForkGroup group) {
+            this.owner = owner;
+            this.part = part;
+            this.group = group;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            // A fork cancelled before starting never runs, so it's never removed otherwise.
+            owner.forks.remove(this);
+            return cancelled;
+        }
+
+        @Override
+        protected U compute() {
+            try {
+                if (owner.isCancelled()) {
+                    throw new CancellationException();
+                }
+                return part.call();
+            } catch (RuntimeException e) {
+                if (group != null) {
+                    group.fail(e);
+                }
+                throw e;
+            } catch (Exception e) {
+                if (group != null) {
+                    group.fail(e);
+                }
+                throw new ForkException(e);
+            } finally {
+                owner.forks.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Carries the checked exceptions thrown by forks.
+     */
+    private static final class ForkException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ForkException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * The parts started by the same call to {@link #invokeAll(Collection)}. The first
+     * one to fail cancels the rest.
+     */
+    private static final class ForkGroup {
+        private final List<Fork<?>> forks = new ArrayList<>();
+        private Exception failure;
+
+        synchronized void add(Fork<?> fork) {
+            if (failure != null) {
+                fork.cancel(false);
+            }
+            forks.add(fork);
+        }
+
+        void fail(Exception e) {
+            List<Fork<?>> snapshot;
+            synchronized (this) {
+                if (failure != null) {
+                    return;
+                }
+                failure = e;
+                snapshot = new ArrayList<>(forks);
+            }
+            for (Fork<?> fork : snapshot) {
+                fork.cancel(false);
+            }
+        }
+
+        synchronized Exception getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import com.mardous.concurrency.task.StreamTask;
+import com.mardous.concurrency.task.StreamTaskBuilder;
+import com.mardous.concurrency.task.TaskConnection;
+
+import java.util.List;
+
+/**
+ * A {@link TaskConnection} that produces a stream of items instead of a single result.
+ * <p>Generally, this is intended to operate along with {@link StreamTask}.
+ *
+ * <p>Items are emitted from a worker thread into a bounded buffer, and delivered on the main
+ * thread in batches, through {@link #onNext(List)}. When the main thread falls behind and the
+ * buffer fills up, the producer is suspended or items are dropped, according to the
+ * {@link StreamTaskBuilder#onBackpressure(com.mardous.concurrency.task.BackpressurePolicy) policy}
+ * of the task.
+ *
+ * @param <T> The type of the items.
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public abstract class AsyncStreamCallable<T> extends TaskConnection {
+
+    /**
+     * Produces the items of the stream, emitting them through the given emitter.
+     * The stream is complete once this method returns.
+     *
+     * @param emitter The emitter used to publish the items.
+     * @throws Exception if the items couldn't be produced.
+     */
+    @WorkerThread
+    public abstract void produce(@NonNull Emitter<T> emitter) throws Exception;
+
+    /**
+     * Called with the next batch of items of the stream.
+     *
+     * <p>If the task was cancelled previously, this method will never be called.
+     *
+     * @param items The items, in the order they were emitted.
+     */
+    public void onNext(@NonNull List<T> items) {
+    }
+
+    /**
+     * Called once every item of the stream has been delivered.
+     *
+     * <p>If the task was cancelled previously, this method will never be called.
+     */
+    public void onComplete() {
+    }
+
+    /**
+     * Publishes the items of an {@link AsyncStreamCallable}.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface Emitter<T> {
+
+        /**
+         * Emits an item. Depending on the backpressure policy of the task, this method
+         * may wait for the main thread to make room in the buffer.
+         *
+         * @param item The item.
+         * @throws InterruptedException                        if the thread was interrupted while waiting.
+         * @throws java.util.concurrent.CancellationException if the task has been cancelled.
+         */
+        @WorkerThread
+        void emit(T item) throws InterruptedException;
+
+        /**
+         * Returns true if the task was cancelled, in which case the
+         * producer should stop as soon as possible.
+         */
+        boolean isCancelled();
+    }
+}
@@ -1,14 +1,18 @@
 package com.mardous.concurrency;
 
+import com.mardous.concurrency.task.BatchTaskBuilder;
 import com.mardous.concurrency.task.FileResultTaskBuilder;
 import com.mardous.concurrency.task.IntegerResultTaskBuilder;
 import com.mardous.concurrency.task.LongResultTaskBuilder;
 import com.mardous.concurrency.task.ResultTaskBuilder;
 import com.mardous.concurrency.task.SimpleTaskBuilder;
+import com.mardous.concurrency.task.StreamTaskBuilder;
 import com.mardous.concurrency.task.StringResultTaskBuilder;
 import com.mardous.concurrency.task.TaskConnection;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Christians Martínez Alvarado (mardous)
@@ -53,6 +57,59 @@ public final class AsyncWorker {
         return new ResultTaskBuilder<>(callable);
     }
 
+    /**
+     * Runs all the given tasks in parallel, producing the list of their results.
+     *
+     * @see ResultTaskBuilder#allOf(List)
+     */
+    public static <T> ResultTaskBuilder<List<T>> allOf(List<? extends ResultTaskBuilder<? extends T>> builders) {
+        return ResultTaskBuilder.allOf(builders);
+    }
+
+    /**
+     * Runs all the given tasks in parallel, producing the first successful result.
+     *
+     * @see ResultTaskBuilder#anyOf(List)
+     */
+    public static <T> ResultTaskBuilder<T> anyOf(List<? extends ResultTaskBuilder<? extends T>> builders) {
+        return ResultTaskBuilder.anyOf(builders);
+    }
+
+    /**
+     * Runs the given callables as a single unit, delivering their aggregated
+     * outcome to the given callback.
+     *
+     * @param callables The callables to run.
+     * @param callback  The callback that receives the outcome of the batch.
+     * @return A new instance of {@link BatchTaskBuilder} which you
+     * can use later to build your task.
+     */
+    public static <T> BatchTaskBuilder<T> forAll(Collection<? extends AsyncCallable<T>> callables,
+                                                 AsyncBatchCallback<T> callback) {
+        return new BatchTaskBuilder<>(callables, callback);
+    }
+
+    /**
+     * Runs the given callables as a single unit, ignoring their outcome.
+     *
+     * @see #forAll(Collection, AsyncBatchCallback)
+     */
+    public static <T> BatchTaskBuilder<T> forAll(Collection<? extends AsyncCallable<T>> callables) {
+        return new BatchTaskBuilder<>(callables, new AsyncBatchCallback<T>() {
+        });
+    }
+
+    /**
+     * Creates a builder for a task that delivers a stream of items as they're produced.
+     *
+     * @param callable The callable that produces the items.
+     * @return A new instance of {@link StreamTaskBuilder} which you
+     * can use later to build your task.
+     */
+    public static <T> StreamTaskBuilder<T> forStream(AsyncStreamCallable<T> callable) {
+        return new StreamTaskBuilder<>(callable);
+    }
+
     public static FileResultTaskBuilder forFile(AsyncCallable<File> callable) {
         return new FileResultTaskBuilder(callable);
     }
@@ -0,0 +1,268 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers task callbacks on the main thread in batches.
+ *
+ * <p>Instead of posting one message per callback, queued callbacks are drained by a
+ * single message posted through the {@link MainThreadDispatcher} registered in {@link Platform}. Each drain runs for at most one {@link #setFrameBudget(long, TimeUnit) frame budget};
+ * whatever is left is spilled to a new message, so the looper can process input and
+ * draw the next frame in between.
+ *
+ * <p>Callbacks are kept in an intrusive queue: every queued callback is a {@link Node}
+ * that links to the next one. Tasks dispatch their own preallocated nodes, so queueing
+ * their callbacks doesn't allocate anything.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class CallbackDispatcher {
+
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+
+    private static volatile CallbackDispatcher instance;
+
+    // A multi-producer, single-consumer queue: producers swap their node into the tail,
+    // and the main thread follows the links from the head.
+    private final Node stub = new RunnableNode(null);
+    private final AtomicReference<Node> tail = new AtomicReference<>(stub);
+    private Node head = stub;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainAction = this::drain;
+
+    private volatile long frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private volatile long drainCount;
+    private volatile long spillCount;
+    private volatile long lastDrainNanos;
+    private volatile long maxDrainNanos;
+    private volatile long totalDrainNanos;
+
+    private CallbackDispatcher() {
+    }
+
+    /**
+     * Gets the process-wide dispatcher bound to the main thread.
+     */
+    @NonNull
+    public static CallbackDispatcher getInstance() {
+        CallbackDispatcher dispatcher = instance;
+        if (dispatcher == null) {
+            synchronized (CallbackDispatcher.class) {
+                dispatcher = instance;
+                if (dispatcher == null) {
+                    instance = dispatcher = new CallbackDispatcher();
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Queues an action to be run on the main thread with the next batch.
+     *
+     * <p>Each call allocates a node to queue the action. The start and completion callbacks
+     * of tasks are queued as preallocated {@link Node nodes} instead; only the less frequent
+     * ones, like {@code onRetry} callbacks and the batches of streams, come through here.
+     *
+     * @param action The action to run.
+     */
+    public void dispatch(@NonNull Runnable action) {
+        dispatch(new RunnableNode(action));
+    }
+
+    /**
+     * Queues a node to be run on the main thread with the next batch. Unlike
+     * {@link #dispatch(Runnable)}, this doesn't allocate.
+     *
+     * <p>A node can only be queued once at a time, so it must not be dispatched
+     * again until it has run.
+     *
+     * @param node The node to run.
+     */
+    public void dispatch(@NonNull Node node) {
+        queueDepth.incrementAndGet();
+        offer(node);
+        dispatchedCount.incrementAndGet();
+        scheduleDrain();
+    }
+
+    /**
+     * Sets the maximum amount of time a single batch is allowed to run
+     * on the main thread. Defaults to 8 milliseconds.
+     *
+     * @param budget The budget of each batch.
+     * @param unit   The time unit of the budget argument.
+     */
+    public void setFrameBudget(long budget, @NonNull TimeUnit unit) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("The frame budget must be greater than zero.");
+        }
+        this.frameBudgetNanos = unit.toNanos(budget);
+    }
+
+    /**
+     * Gets the number of callbacks waiting to be run.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Gets the number of callbacks dispatched since the process started.
+     */
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    /**
+     * Gets the number of batches run on the main thread.
+     */
+    public long getDrainCount() {
+        return drainCount;
+    }
+
+    /**
+     * Gets the number of batches that ran out of budget and left
+     * callbacks for the next frame.
+     */
+    public long getSpillCount() {
+        return spillCount;
+    }
+
+    /**
+     * Gets the time, in nanoseconds, spent by the last batch.
+     */
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+
+    /**
+     * Gets the time, in nanoseconds, spent by the longest batch.
+     */
+    public long getMaxDrainNanos() {
+        return maxDrainNanos;
+    }
+
+    /**
+     * Gets the total time, in nanoseconds, spent running batches.
+     */
+    public long getTotalDrainNanos() {
+        return totalDrainNanos;
+    }
+
+    private void offer(Node node) {
+        node.next = null;
+        Node previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Takes the node at the head of the queue. It returns {@code null} if the queue is
+     * empty, and also if a producer has not finished linking its node yet.
+     */
+    @Nullable
+    @MainThread
+    private Node poll() {
+        Node head = this.head;
+        Node next = head.next;
+        if (head == stub) {
+            if (next == null) {
+                return null;
+            }
+            this.head = next;
+            head = next;
+            next = next.next;
+        }
+        if (next != null) {
+            this.head = next;
+            return head;
+        }
+        if (head != tail.get()) {
+            return null;
+        }
+        // The head is the last node: the stub takes its place, so it can be unlinked.
+        offer(stub);
+        next = head.next;
+        if (next != null) {
+            this.head = next;
+            return head;
+        }
+        return null;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.getMainThreadDispatcher().post(drainAction);
+        }
+    }
+
+    @MainThread
+    private void drain() {
+        final long start = System.nanoTime();
+        final long budget = frameBudgetNanos;
+        boolean spilled = false;
+        try {
+            Node node;
+            while ((node = poll()) != null) {
+                queueDepth.decrementAndGet();
+                node.run();
+                if (System.nanoTime() - start >= budget) {
+                    spilled = queueDepth.get() > 0;
+                    break;
+                }
+            }
+        } finally {
+            final long elapsed = System.nanoTime() - start;
+            lastDrainNanos = elapsed;
+            totalDrainNanos += elapsed;
+            if (elapsed > maxDrainNanos) {
+                maxDrainNanos = elapsed;
+            }
+            drainCount++;
+            if (spilled) {
+                spillCount++;
+            }
+
+            drainScheduled.set(false);
+            // Leftovers (or callbacks queued while draining) go to the next message.
+            if (queueDepth.get() > 0) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    /**
+     * An action that can be queued by {@link #dispatch(Node)}. It holds the link to the
+     * next action of the queue, so it can be dispatched again once it has run, without
+     * allocating.
+     */
+    public abstract static class Node implements Runnable {
+        private volatile Node next;
+    }
+
+    private static final class RunnableNode extends Node {
+        private final Runnable action;
+
+        RunnableNode(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            action.run();
+        }
+    }
+}
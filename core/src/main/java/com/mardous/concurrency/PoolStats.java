@@ -0,0 +1,163 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.internal.AdaptiveThreadPoolExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * A snapshot of the statistics of a pool of {@link TaskExecutors}.
+ *
+ * <p>Only the adaptive pools, like the {@link TaskExecutors#cpu() CPU} one, measure how much
+ * their work blocks and have a bounded queue: for the rest of the pools, the
+ * {@link #getBlockingRatio() blocking ratio} is {@code -1} and the saturation counters are zero.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class PoolStats {
+    private final String name;
+    private final int poolSize;
+    private final int maxPoolSize;
+    private final int largestPoolSize;
+    private final int activeCount;
+    private final int queueSize;
+    private final int queueCapacity;
+    private final long completedTaskCount;
+    private final double blockingRatio;
+    private final long rejectedCount;
+    private final long droppedCount;
+    private final long callerRunsCount;
+
+    PoolStats(String name, ThreadPoolExecutor pool) {
+        this.name = name;
+        this.poolSize = pool.getPoolSize();
+        this.maxPoolSize = pool.getMaximumPoolSize();
+        this.largestPoolSize = pool.getLargestPoolSize();
+        this.activeCount = pool.getActiveCount();
+        this.queueSize = pool.getQueue().size();
+        this.completedTaskCount = pool.getCompletedTaskCount();
+        if (pool instanceof AdaptiveThreadPoolExecutor) {
+            AdaptiveThreadPoolExecutor adaptive = (AdaptiveThreadPoolExecutor) pool;
+            this.queueCapacity = adaptive.getQueueCapacity();
+            this.blockingRatio = adaptive.getBlockingRatio();
+            this.rejectedCount = adaptive.getRejectedCount();
+            this.droppedCount = adaptive.getDroppedCount();
+            this.callerRunsCount = adaptive.getCallerRunsCount();
+        } else {
+            this.queueCapacity = Integer.MAX_VALUE;
+            this.blockingRatio = -1;
+            this.rejectedCount = 0;
+            this.droppedCount = 0;
+            this.callerRunsCount = 0;
+        }
+    }
+
+    /**
+     * Gets the name of the pool.
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of threads currently in the pool.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Gets the number of threads the pool is allowed to have right now. Adaptive
+     * pools change it as they measure their work.
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Gets the largest number of threads that have ever been in the pool at the same time.
+     */
+    public int getLargestPoolSize() {
+        return largestPoolSize;
+    }
+
+    /**
+     * Gets the approximate number of threads running tasks.
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * Gets the number of tasks waiting in the queue.
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Gets the maximum number of tasks that can wait in the queue, or
+     * {@link Integer#MAX_VALUE} if it's unbounded.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Gets the approximate number of tasks the pool has completed.
+     */
+    public long getCompletedTaskCount() {
+        return completedTaskCount;
+    }
+
+    /**
+     * Gets the ratio of the time spent blocked to the CPU time of the work run by the pool,
+     * or {@code -1} if it's not measured. A ratio of {@code 3} means that, for each
+     * millisecond on the CPU, tasks spend three milliseconds blocked.
+     */
+    public double getBlockingRatio() {
+        return blockingRatio;
+    }
+
+    /**
+     * Gets the number of tasks rejected because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Gets the number of tasks dropped from the queue to make room for new ones,
+     * including plain {@link Runnable}s, which are discarded without being told.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Gets the number of tasks run by the thread submitting them because the queue was full.
+     */
+    public long getCallerRunsCount() {
+        return callerRunsCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "name='" + name + '\'' +
+                ", poolSize=" + poolSize +
+                ", maxPoolSize=" + maxPoolSize +
+                ", largestPoolSize=" + largestPoolSize +
+                ", active=" + activeCount +
+                ", queueSize=" + queueSize +
+                ", queueCapacity=" + queueCapacity +
+                ", completed=" + completedTaskCount +
+                ", blockingRatio=" + blockingRatio +
+                ", rejected=" + rejectedCount +
+                ", dropped=" + droppedCount +
+                ", callerRuns=" + callerRunsCount +
+                '}';
+    }
+}
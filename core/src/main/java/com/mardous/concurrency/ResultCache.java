@@ -0,0 +1,353 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.mardous.concurrency.internal.NamespacedKey;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory cache of task results, used by {@link com.mardous.concurrency.task.ResultTaskBuilder#cacheKey(Object)}.
+ *
+ * <p>The cache is bounded by its number of entries and, optionally, by the total weight of
+ * its entries. When a bound is exceeded the least recently used entries are evicted. Entries
+ * can also expire a fixed time after they were stored.
+ *
+ * <p>Instances are thread-safe.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class ResultCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 128;
+
+    private static volatile ResultCache defaultCache;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Weigher weigher;
+    private final long expireAfterWriteNanos;
+
+    // Iterated in access order, so the eldest entry is the least recently used one.
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    private ResultCache(Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.maxWeight = builder.maxWeight;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+    }
+
+    /**
+     * Gets the cache shared by all the builders that have not been configured
+     * with a different one. It holds up to {@value #DEFAULT_MAX_ENTRIES} entries
+     * which never expire.
+     *
+     * <p>The builders qualify their keys with the computation they belong to, so the
+     * entries of the default cache are only found by their tasks. They can still be
+     * {@link #invalidate(Object) invalidated} by the key given to the builder.
+     *
+     * @return the default cache.
+     */
+    @NonNull
+    public static ResultCache getDefault() {
+        ResultCache cache = defaultCache;
+        if (cache == null) {
+            synchronized (ResultCache.class) {
+                cache = defaultCache;
+                if (cache == null) {
+                    cache = new Builder().build();
+                    defaultCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Looks up an entry of this cache.
+     *
+     * @param key The key of the entry.
+     * @return the entry, or {@code null} if there is no entry for the
+     * given key or it has expired.
+     */
+    @Nullable
+    public synchronized Entry lookup(@NonNull Object key) {
+        Utils.assertNonNull(key, "Key");
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            remove(key);
+            expirationCount++;
+            entry = null;
+        }
+        if (entry == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a value in this cache, replacing the previous entry for the same key.
+     *
+     * <p>A value heavier than the maximum weight of the cache is not stored.
+     *
+     * @param key   The key of the entry.
+     * @param value The value to store, which may be {@code null}.
+     */
+    public synchronized void put(@NonNull Object key, @Nullable Object value) {
+        Utils.assertNonNull(key, "Key");
+        int entryWeight = weigher != null ? weigher.weigh(userKey(key), value) : 1;
+        if (entryWeight < 0) {
+            throw new IllegalArgumentException("Weights must not be negative.");
+        }
+        remove(key);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        long expiresAt = expireAfterWriteNanos > 0 ? System.nanoTime() + expireAfterWriteNanos : 0;
+        entries.put(key, new Entry(value, entryWeight, expiresAt));
+        weight += entryWeight;
+        trim();
+    }
+
+    /**
+     * Discards the entry for the given key, if any, and the entries stored by
+     * tasks with the given key under their own namespace.
+     *
+     * @param key The key of the entry.
+     */
+    public synchronized void invalidate(@NonNull Object key) {
+        Utils.assertNonNull(key, "Key");
+        remove(key);
+        if (key instanceof NamespacedKey) {
+            return;
+        }
+        Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, Entry> entry = iterator.next();
+            if (entry.getKey() instanceof NamespacedKey && key.equals(((NamespacedKey) entry.getKey()).getKey())) {
+                iterator.remove();
+                weight -= entry.getValue().weight;
+            }
+        }
+    }
+
+    /**
+     * Discards all the entries of this cache.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Gets the number of entries in this cache, including
+     * expired entries that have not been discarded yet.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the total weight of the entries in this cache.
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * Gets a snapshot of the statistics of this cache.
+     */
+    @NonNull
+    public synchronized Stats getStats() {
+        return new Stats(hitCount, missCount, evictionCount, expirationCount);
+    }
+
+    private static Object userKey(Object key) {
+        return key instanceof NamespacedKey ? ((NamespacedKey) key).getKey() : key;
+    }
+
+    private void remove(Object key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && (entries.size() > maxEntries || weight > maxWeight)) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            weight -= eldest.weight;
+            evictionCount++;
+        }
+    }
+
+    /**
+     * An entry of a {@link ResultCache}.
+     */
+    public static final class Entry {
+        private final Object value;
+        private final int weight;
+        private final long expiresAt;
+
+        Entry(Object value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Gets the stored value.
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public <T> T getValue() {
+            return (T) value;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != 0 && now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * The statistics of a {@link ResultCache}, useful to size it.
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long expirationCount;
+
+        Stats(long hitCount, long missCount, long evictionCount, long expirationCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+        }
+
+        /**
+         * Gets the number of lookups that found an entry.
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * Gets the number of lookups that did not find an entry, or found an expired one.
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * Gets the ratio of lookups that found an entry, or {@code 1} if there were no lookups.
+         */
+        public double getHitRate() {
+            long lookups = hitCount + missCount;
+            return lookups == 0 ? 1.0 : (double) hitCount / lookups;
+        }
+
+        /**
+         * Gets the number of entries evicted because the cache was full.
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * Gets the number of entries discarded because they had expired.
+         */
+        public long getExpirationCount() {
+            return expirationCount;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "ResultCache.Stats{hits=" + hitCount + ", misses=" + missCount
+                    + ", evictions=" + evictionCount + ", expirations=" + expirationCount + "}";
+        }
+    }
+
+    /**
+     * Creates {@link ResultCache} instances.
+     */
+    public static final class Builder {
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private long maxWeight = Long.MAX_VALUE;
+        private Weigher weigher;
+        private long expireAfterWriteNanos;
+
+        /**
+         * Sets the maximum number of entries of the cache.
+         *
+         * @param maxEntries The maximum number of entries.
+         * @return this same builder instance.
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("The maximum number of entries must be greater than zero.");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Sets the maximum total weight of the entries of the cache, as
+         * measured by the given {@link Weigher}.
+         *
+         * @param maxWeight The maximum weight.
+         * @param weigher   The weigher used to calculate the weight of every entry.
+         * @return this same builder instance.
+         */
+        public Builder maxWeight(long maxWeight, @NonNull Weigher weigher) {
+            Utils.assertNonNull(weigher, "Weigher");
+            if (maxWeight <= 0) {
+                throw new IllegalArgumentException("The maximum weight must be greater than zero.");
+            }
+            this.maxWeight = maxWeight;
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Makes entries expire once the given time has elapsed since they were stored.
+         *
+         * @param duration The time an entry stays valid.
+         * @param unit     The unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder expireAfterWrite(long duration, @NonNull TimeUnit unit) {
+            Utils.assertNonNull(unit, "TimeUnit");
+            if (duration <= 0) {
+                throw new IllegalArgumentException("The duration must be greater than zero.");
+            }
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Creates the cache.
+         *
+         * @return a new, empty, cache.
+         */
+        @NonNull
+        public ResultCache build() {
+            return new ResultCache(this);
+        }
+    }
+}
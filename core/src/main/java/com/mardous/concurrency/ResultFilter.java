@@ -0,0 +1,271 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.internal.Predicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A class designed to hold {@link Predicate}s that can be used
+ * to test any object resulting from the execution of {@link AsyncCallable#call()}.
+ *
+ * <p>Predicates are kept in an immutable array that is copied when a predicate is added,
+ * so testing a result takes no locks and never changes the filter: the same filter can be
+ * shared by every task created from a builder. A result is acceptable if no predicate rejects it.
+ *
+ * <p>Once in a while a result is tested against every predicate to sample how long each one
+ * takes and how often it rejects results. The predicates are then reordered so that the cheap
+ * and selective ones run first, and most unacceptable results are caught sooner. Because of
+ * that, predicates must not depend on the order in which they were added, and should have
+ * no side effects.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class ResultFilter<T> {
+
+    // One in every SAMPLE_MASK + 1 tests is sampled.
+    private static final int SAMPLE_MASK = 255;
+    // The predicates are reordered every REORDER_INTERVAL samples.
+    private static final int REORDER_INTERVAL = 16;
+    // Keeps predicates that never reject from getting an infinite score.
+    private static final double MIN_REJECTION_RATE = 0.01;
+
+    private static final Entry<?>[] EMPTY = new Entry<?>[0];
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ResultFilter, Entry[]> ENTRIES_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(ResultFilter.class, Entry[].class, "entries");
+
+    private volatile Entry<?>[] entries = EMPTY;
+
+    // Racy on purpose: losing an increment only delays a sample.
+    private int testCount;
+    private int sampleCount;
+
+    public void add(Predicate<T> predicate) {
+        if (predicate == null) {
+            return;
+        }
+        Entry<?>[] current, updated;
+        do {
+            current = entries;
+            updated = new Entry<?>[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = new Entry<>(predicate);
+        } while (!ENTRIES_UPDATER.compareAndSet(this, current, updated));
+    }
+
+    public boolean acceptable(T result) {
+        final Entry<?>[] entries = this.entries;
+        if (entries.length == 0) {
+            return true;
+        }
+        if ((++testCount & SAMPLE_MASK) == 0) {
+            return sample(entries, result);
+        }
+        NullPointerException failure = null;
+        for (Entry<?> entry : entries) {
+            try {
+                if (!entry.<T>predicate().test(result)) {
+                    return false;
+                }
+            } catch (NullPointerException e) {
+                failure = e;
+            }
+        }
+        return accept(failure);
+    }
+
+    /**
+     * Tests the given result against every predicate, recording how long each one
+     * takes and whether it rejected the result.
+     */
+    private boolean sample(Entry<?>[] entries, T result) {
+        boolean acceptable = true;
+        NullPointerException failure = null;
+        for (Entry<?> entry : entries) {
+            final long start = System.nanoTime();
+            boolean passed;
+            try {
+                passed = entry.<T>predicate().test(result);
+            } catch (NullPointerException e) {
+                failure = e;
+                passed = true;
+            }
+            entry.record(System.nanoTime() - start, passed);
+            acceptable &= passed;
+        }
+        if (++sampleCount % REORDER_INTERVAL == 0) {
+            reorder(entries);
+        }
+        return acceptable && accept(failure);
+    }
+
+    /**
+     * A predicate that failed with a {@link NullPointerException} doesn't reject the result,
+     * but it's only worth a warning when no other predicate rejected it.
+     */
+    private static boolean accept(NullPointerException failure) {
+        if (failure != null) {
+            Logger.getLogger("AsyncWorker").log(Level.WARNING, "An error occurred while testing a result.", failure);
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the predicates by their expected cost to reject a result: the average
+     * cost divided by the rejection rate. The new order is only published if no
+     * predicate has been added in the meantime.
+     */
+    private void reorder(Entry<?>[] entries) {
+        final int length = entries.length;
+        if (length < 2) {
+            return;
+        }
+        final Entry<?>[] sorted = entries.clone();
+        final double[] scores = new double[length];
+        for (int i = 0; i < length; i++) {
+            scores[i] = sorted[i].score();
+        }
+        boolean changed = false;
+        // Insertion sort: there are only a few predicates, and it keeps the order of ties.
+        for (int i = 1; i < length; i++) {
+            final Entry<?> entry = sorted[i];
+            final double score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] > score) {
+                sorted[j + 1] = sorted[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            if (j + 1 != i) {
+                sorted[j + 1] = entry;
+                scores[j + 1] = score;
+                changed = true;
+            }
+        }
+        if (changed) {
+            ENTRIES_UPDATER.compareAndSet(this, entries, sorted);
+        }
+    }
+
+    /**
+     * Gets the statistics of every predicate of this filter, in the
+     * order in which they're currently tested.
+     */
+    @NonNull
+    public List<Stats> getStats() {
+        final Entry<?>[] entries = this.entries;
+        final List<Stats> stats = new ArrayList<>(entries.length);
+        for (Entry<?> entry : entries) {
+            stats.add(new Stats(entry.predicate, entry.samples, entry.rejections, entry.costNanos));
+        }
+        return Collections.unmodifiableList(stats);
+    }
+
+    private static final class Entry<T> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<Entry> SAMPLES_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Entry.class, "samples");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<Entry> REJECTIONS_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Entry.class, "rejections");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<Entry> COST_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Entry.class, "costNanos");
+
+        private final Predicate<T> predicate;
+        private volatile long samples;
+        private volatile long rejections;
+        private volatile long costNanos;
+
+        Entry(Predicate<T> predicate) {
+            this.predicate = predicate;
+        }
+
+        @SuppressWarnings("unchecked")
+        <R> Predicate<R> predicate() {
+            return (Predicate<R>) predicate;
+        }
+
+        void record(long costNanos, boolean passed) {
+            SAMPLES_UPDATER.incrementAndGet(this);
+            COST_UPDATER.addAndGet(this, costNanos);
+            if (!passed) {
+                REJECTIONS_UPDATER.incrementAndGet(this);
+            }
+        }
+
+        double score() {
+            final long samples = this.samples;
+            if (samples == 0) {
+                // Not sampled yet, so it keeps its place among the first ones.
+                return 0;
+            }
+            final double averageCost = (double) costNanos / samples;
+            return averageCost / Math.max(MIN_REJECTION_RATE, (double) rejections / samples);
+        }
+    }
+
+    /**
+     * The statistics of a predicate, taken from the sampled tests.
+     */
+    public static final class Stats {
+        private final Predicate<?> predicate;
+        private final long sampleCount;
+        private final long rejectionCount;
+        private final long totalCostNanos;
+
+        Stats(Predicate<?> predicate, long sampleCount, long rejectionCount, long totalCostNanos) {
+            this.predicate = predicate;
+            this.sampleCount = sampleCount;
+            this.rejectionCount = rejectionCount;
+            this.totalCostNanos = totalCostNanos;
+        }
+
+        /**
+         * Gets the predicate these statistics belong to.
+         */
+        @NonNull
+        public Predicate<?> getPredicate() {
+            return predicate;
+        }
+
+        /**
+         * Gets the number of sampled tests.
+         */
+        public long getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * Gets the ratio of sampled results rejected by the predicate, or {@code 0} if there were no samples.
+         */
+        public double getRejectionRate() {
+            return sampleCount == 0 ? 0 : (double) rejectionCount / sampleCount;
+        }
+
+        /**
+         * Gets the average time, in nanoseconds, spent by the predicate in a sampled test.
+         */
+        public double getAverageCostNanos() {
+            return sampleCount == 0 ? 0 : (double) totalCostNanos / sampleCount;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "ResultFilter.Stats{" +
+                    "samples=" + sampleCount +
+                    ", rejectionRate=" + getRejectionRate() +
+                    ", averageCostNanos=" + getAverageCostNanos() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.mardous.concurrency;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * What an adaptive pool does with new work when its queue is full.
+ *
+ * <p>Tasks whose work is rejected or dropped are not lost silently: they finish with
+ * a {@link RejectedExecutionException} delivered to their {@code onError} callback.
+ * Plain {@link Runnable}s given straight to a pool have no callback: if they're dropped,
+ * they're discarded and only counted in {@link PoolStats#getDroppedCount()}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ * @see TaskExecutors#setSaturationPolicy(int, SaturationPolicy)
+ */
+public enum SaturationPolicy {
+    /**
+     * The work runs right away on the thread submitting it, which slows the producer
+     * down to the pace of the pool. Work submitted from the main thread is queued
+     * anyway, so the main thread is never blocked by it.
+     */
+    CALLER_RUNS,
+    /**
+     * The work that has been waiting the longest is dropped to make room for the new one.
+     * Tasks are rejected, while plain {@link Runnable}s are discarded without running.
+     */
+    DROP_OLDEST,
+    /**
+     * The new work is rejected.
+     */
+    REJECT
+}
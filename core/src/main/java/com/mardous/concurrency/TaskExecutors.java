@@ -0,0 +1,364 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import com.mardous.concurrency.internal.AdaptiveThreadPoolExecutor;
+import com.mardous.concurrency.internal.PriorityThreadPoolExecutor;
+import com.mardous.concurrency.internal.Rejectable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A process-wide registry of the {@link ExecutorService executors} used to run tasks.
+ *
+ * <p>Every pool is created lazily the first time it's requested and then shared by
+ * all the builders that ask for it, so the number of threads stays bounded no matter
+ * how many tasks are created. Idle workers are reclaimed after {@link #KEEP_ALIVE_SECONDS}.
+ *
+ * <p>Work waiting in these pools is ordered by {@link com.mardous.concurrency.task.TaskPriority priority},
+ * instead of the order in which it was submitted.
+ *
+ * <p>There are three kinds of pools:
+ * <ol>
+ *     <li>{@link #cpu()}: the default one, which sizes itself after the number of available processors
+ *     and how much its work blocks. Its queue can be bounded with {@link #setSaturationPolicy(int, SaturationPolicy)}.</li>
+ *     <li>{@link #io()}: a wider pool meant for blocking work (network, disk, etc.).</li>
+ *     <li>{@link #named(String, int)}: dedicated pools identified by a name.</li>
+ * </ol>
+ *
+ * <p>Besides those, there is a shared {@link #forkJoin() work-stealing pool} for
+ * {@link AsyncSplittableCallable splittable} work, and on Java 21 or newer, a
+ * {@link #virtualThreads() virtual thread executor} for blocking work without a ceiling.
+ *
+ * <p>The state of every pool can be inspected with {@link #getPoolStats()}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class TaskExecutors {
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int CPU_POOL_SIZE = Math.max(2, CPU_COUNT);
+    private static final int IO_POOL_SIZE = Math.max(16, CPU_COUNT * 4);
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static final String CPU_POOL_NAME = "CPU";
+    private static final String IO_POOL_NAME = "IO";
+
+    private static final ConcurrentMap<String, ThreadPoolExecutor> POOLS = new ConcurrentHashMap<>();
+
+    // Applied to the CPU pool, even if it has to be created again.
+    private static int cpuQueueCapacity = Integer.MAX_VALUE;
+    private static SaturationPolicy cpuSaturationPolicy = SaturationPolicy.REJECT;
+
+    private static ForkJoinPool forkJoinPool;
+    private static ExecutorService virtualThreadExecutor;
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Gets the executor used by default when a builder has not been configured
+     * with a different one. Currently, this is the {@link #cpu()} pool.
+     *
+     * @return the default executor.
+     */
+    @NonNull
+    public static ExecutorService getDefault() {
+        return cpu();
+    }
+
+    /**
+     * Gets the shared pool intended for CPU-bound work. It starts with as many threads as
+     * available processors (but never less than two), and measures the time its tasks spend
+     * blocked: the more they block, the more threads it gets, up to the size of the {@link #io()} pool.
+     *
+     * <p>Its queue is unbounded unless {@link #setSaturationPolicy(int, SaturationPolicy) configured} otherwise.
+     *
+     * @return the CPU-bound executor.
+     */
+    @NonNull
+    public static ExecutorService cpu() {
+        ThreadPoolExecutor pool = POOLS.get(CPU_POOL_NAME);
+        if (pool != null && !pool.isShutdown()) {
+            return pool;
+        }
+        synchronized (POOLS) {
+            pool = POOLS.get(CPU_POOL_NAME);
+            if (pool == null || pool.isShutdown()) {
+                AdaptiveThreadPoolExecutor adaptive = new AdaptiveThreadPoolExecutor(CPU_POOL_SIZE,
+                        Math.max(CPU_POOL_SIZE, IO_POOL_SIZE), KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new PoolThreadFactory(CPU_POOL_NAME));
+                adaptive.allowCoreThreadTimeOut(true);
+                adaptive.setSaturationPolicy(cpuQueueCapacity, cpuSaturationPolicy);
+                pool = adaptive;
+                POOLS.put(CPU_POOL_NAME, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Bounds the queue of the {@link #cpu()} pool, which is unbounded by default. When the queue
+     * is full, new work is handled according to the given policy; tasks whose work is rejected
+     * or dropped finish with a {@link java.util.concurrent.RejectedExecutionException}
+     * delivered to their {@code onError} callback.
+     *
+     * @param queueCapacity The maximum number of tasks waiting in the queue,
+     *                      or {@link Integer#MAX_VALUE} for an unbounded queue.
+     * @param policy        What to do with new work when the queue is full.
+     */
+    public static void setSaturationPolicy(int queueCapacity, @NonNull SaturationPolicy policy) {
+        Utils.assertNonNull(policy, "Saturation policy");
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("The queue capacity must be greater than zero.");
+        }
+        synchronized (POOLS) {
+            cpuQueueCapacity = queueCapacity;
+            cpuSaturationPolicy = policy;
+            ThreadPoolExecutor pool = POOLS.get(CPU_POOL_NAME);
+            if (pool instanceof AdaptiveThreadPoolExecutor) {
+                ((AdaptiveThreadPoolExecutor) pool).setSaturationPolicy(queueCapacity, policy);
+            }
+        }
+    }
+
+    /**
+     * Gets a snapshot of the statistics of every thread pool created so far, that is,
+     * every pool except the {@link #forkJoin() work-stealing} one and the
+     * {@link #virtualThreads() virtual thread executor}.
+     */
+    @NonNull
+    public static List<PoolStats> getPoolStats() {
+        List<PoolStats> stats = new ArrayList<>(POOLS.size());
+        for (Map.Entry<String, ThreadPoolExecutor> entry : POOLS.entrySet()) {
+            stats.add(new PoolStats(entry.getKey(), entry.getValue()));
+        }
+        return Collections.unmodifiableList(stats);
+    }
+
+    /**
+     * Gets the shared pool intended for blocking work, such as network
+     * or disk operations.
+     *
+     * @return the IO-bound executor.
+     */
+    @NonNull
+    public static ExecutorService io() {
+        return named(IO_POOL_NAME, IO_POOL_SIZE);
+    }
+
+    /**
+     * Gets the shared work-stealing pool, intended for CPU-bound work that splits itself
+     * in smaller parts, i.e. an {@link AsyncSplittableCallable}. It has as many threads
+     * as available processors.
+     *
+     * <p>Unlike the other pools, its waiting tasks are not ordered by priority.
+     *
+     * @return the work-stealing executor.
+     */
+    @NonNull
+    @RequiresApi(21)
+    public static ForkJoinPool forkJoin() {
+        synchronized (POOLS) {
+            if (forkJoinPool == null || forkJoinPool.isShutdown()) {
+                forkJoinPool = new ForkJoinPool(CPU_COUNT, pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("SimpleConcurrency-ForkJoin #" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+            }
+            return forkJoinPool;
+        }
+    }
+
+    /**
+     * Gets the shared executor that runs each task on a new virtual thread. Virtual threads are
+     * cheap to block, so there is no limit on the number of blocking tasks running at the same
+     * time. It requires Java 21 or newer: on older runtimes, including Android, it falls back
+     * to the {@link #io()} pool.
+     *
+     * <p>Tasks are not queued, so their priority doesn't change the order in which they run.
+     *
+     * @return the virtual thread executor, or the IO-bound pool if virtual threads are not supported.
+     * @see #isVirtualThreadsSupported()
+     */
+    @NonNull
+    public static ExecutorService virtualThreads() {
+        synchronized (POOLS) {
+            if (virtualThreadExecutor == null || virtualThreadExecutor.isShutdown()) {
+                virtualThreadExecutor = newVirtualThreadExecutor();
+            }
+            if (virtualThreadExecutor != null) {
+                return virtualThreadExecutor;
+            }
+        }
+        return io();
+    }
+
+    /**
+     * Returns true if the runtime supports virtual threads, that is, if
+     * {@link #virtualThreads()} is not going to fall back to the {@link #io()} pool.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return VirtualThreads.EXECUTOR_FACTORY != null;
+    }
+
+    /**
+     * Gets a shared pool identified by the given name, creating it if necessary
+     * with the given number of threads.
+     *
+     * <p>If a pool with the same name already exists it is returned as is,
+     * regardless of the requested number of threads.
+     *
+     * @param name    The name of the pool.
+     * @param threads The maximum number of threads of the pool.
+     * @return the executor registered under the given name.
+     */
+    @NonNull
+    public static ExecutorService named(@NonNull String name, int threads) {
+        Utils.assertNonNull(name, "Pool name");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be greater than zero.");
+        }
+        ThreadPoolExecutor pool = POOLS.get(name);
+        if (pool != null && !pool.isShutdown()) {
+            return pool;
+        }
+        synchronized (POOLS) {
+            pool = POOLS.get(name);
+            if (pool == null || pool.isShutdown()) {
+                pool = newPool(name, threads);
+                POOLS.put(name, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Initiates an orderly shutdown of every pool created so far. Previously submitted
+     * tasks are executed, but no new tasks will be accepted by those pools.
+     *
+     * <p>Pools requested after this call are created again from scratch.
+     */
+    public static void shutdown() {
+        for (ExecutorService pool : drain()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Attempts to stop every pool created so far, interrupting the running tasks.
+     * Tasks that never commenced execution finish with a {@link RejectedExecutionException},
+     * releasing the permits they held from their {@link com.mardous.concurrency.task.Bulkhead bulkheads}.
+     *
+     * <p>Pools requested after this call are created again from scratch.
+     *
+     * @return the list of tasks that never commenced execution.
+     */
+    @NonNull
+    public static List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<>();
+        for (ExecutorService pool : drain()) {
+            pending.addAll(pool.shutdownNow());
+        }
+        for (Runnable runnable : pending) {
+            if (runnable instanceof Rejectable) {
+                ((Rejectable) runnable).reject(new RejectedExecutionException("The pool was shut down."));
+            }
+        }
+        return pending;
+    }
+
+    private static List<ExecutorService> drain() {
+        synchronized (POOLS) {
+            List<ExecutorService> pools = new ArrayList<>(POOLS.values());
+            POOLS.clear();
+            if (forkJoinPool != null) {
+                pools.add(forkJoinPool);
+                forkJoinPool = null;
+            }
+            if (virtualThreadExecutor != null) {
+                pools.add(virtualThreadExecutor);
+                virtualThreadExecutor = null;
+            }
+            return pools;
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads) {
+        ThreadPoolExecutor pool = new PriorityThreadPoolExecutor(threads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new PoolThreadFactory(name));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (VirtualThreads.EXECUTOR_FACTORY == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) VirtualThreads.EXECUTOR_FACTORY.invoke(null, VirtualThreads.THREAD_FACTORY);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks up the virtual thread API through reflection, so this
+     * class still loads on runtimes that don't have it.
+     */
+    private static final class VirtualThreads {
+        static final ThreadFactory THREAD_FACTORY;
+        static final Method EXECUTOR_FACTORY;
+
+        static {
+            ThreadFactory threadFactory = null;
+            Method executorFactory = null;
+            try {
+                // Thread.ofVirtual().name("SimpleConcurrency-Virtual #", 1).factory()
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builder = builderClass.getMethod("name", String.class, long.class)
+                        .invoke(builder, "SimpleConcurrency-Virtual #", 1L);
+                threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+                executorFactory = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            } catch (Exception e) {
+                // Not supported by this runtime. ReflectiveOperationException is not caught
+                // on its own, since it's missing on old Android versions.
+                threadFactory = null;
+                executorFactory = null;
+            }
+            THREAD_FACTORY = threadFactory;
+            EXECUTOR_FACTORY = executorFactory;
+        }
+    }
+
+    private static final class PoolThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger(1);
+        private final String prefix;
+
+        PoolThreadFactory(String poolName) {
+            this.prefix = "SimpleConcurrency-" + poolName + " #";
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            return new Thread(r, prefix + count.getAndIncrement());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.mardous.concurrency.internal.LatencyHistogram;
+import com.mardous.concurrency.spi.TaskInstrumentation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The built-in {@link TaskInstrumentation}, which keeps latency histograms and
+ * outcome counters for every task name.
+ *
+ * <p>To use it, install it before creating the tasks to measure, and take
+ * {@link #snapshot() snapshots} whenever you want to inspect or export them:
+ * <pre><code>
+ *     TaskMetrics metrics = new TaskMetrics();
+ *     Platform.setTaskInstrumentation(metrics);
+ *     ...
+ *     Log.d(TAG, metrics.snapshot().toString());
+ * </code></pre>
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ * @see com.mardous.concurrency.task.TaskBuilder#name(String)
+ */
+public final class TaskMetrics implements TaskInstrumentation {
+
+    private final ConcurrentMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordQueueWait(@NonNull String taskName, long nanos) {
+        recorder(taskName).queueWait.record(nanos);
+    }
+
+    @Override
+    public void recordExecution(@NonNull String taskName, long nanos) {
+        recorder(taskName).execution.record(nanos);
+    }
+
+    @Override
+    public void recordDispatch(@NonNull String taskName, long nanos) {
+        recorder(taskName).dispatch.record(nanos);
+    }
+
+    @Override
+    public void recordOutcome(@NonNull String taskName, @NonNull Outcome outcome) {
+        recorder(taskName).outcomes[outcome.ordinal()].incrementAndGet();
+    }
+
+    /**
+     * Takes a snapshot of the metrics recorded so far.
+     */
+    @NonNull
+    public Snapshot snapshot() {
+        Map<String, TaskStats> stats = new TreeMap<>();
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return new Snapshot(Collections.unmodifiableMap(stats));
+    }
+
+    /**
+     * Discards the metrics recorded so far.
+     */
+    public void reset() {
+        recorders.clear();
+    }
+
+    private Recorder recorder(String taskName) {
+        Recorder recorder = recorders.get(taskName);
+        if (recorder == null) {
+            Recorder created = new Recorder();
+            recorder = recorders.putIfAbsent(taskName, created);
+            if (recorder == null) {
+                recorder = created;
+            }
+        }
+        return recorder;
+    }
+
+    private static final class Recorder {
+        final LatencyHistogram queueWait = new LatencyHistogram();
+        final LatencyHistogram execution = new LatencyHistogram();
+        final LatencyHistogram dispatch = new LatencyHistogram();
+        final AtomicLong[] outcomes = new AtomicLong[Outcome.values().length];
+
+        Recorder() {
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new AtomicLong();
+            }
+        }
+
+        TaskStats snapshot() {
+            long[] counts = new long[outcomes.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = outcomes[i].get();
+            }
+            return new TaskStats(queueWait.snapshot(), execution.snapshot(), dispatch.snapshot(), counts);
+        }
+    }
+
+    /**
+     * The metrics of all the tasks, by name.
+     */
+    public static final class Snapshot {
+        private final Map<String, TaskStats> stats;
+
+        Snapshot(Map<String, TaskStats> stats) {
+            this.stats = stats;
+        }
+
+        /**
+         * Gets the metrics of every task name, sorted by name.
+         */
+        @NonNull
+        public Map<String, TaskStats> getStats() {
+            return stats;
+        }
+
+        /**
+         * Gets the metrics of the tasks with the given name.
+         *
+         * @param taskName The name of the tasks.
+         * @return the metrics, or {@code null} if no task with that name has been measured.
+         */
+        @Nullable
+        public TaskStats getStats(@NonNull String taskName) {
+            return stats.get(taskName);
+        }
+
+        /**
+         * Exports this snapshot as text, one line per task name and metric.
+         */
+        @NonNull
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<String, TaskStats> entry : stats.entrySet()) {
+                String name = entry.getKey();
+                TaskStats taskStats = entry.getValue();
+                builder.append(name).append(" outcomes: success=").append(taskStats.getCount(Outcome.SUCCESS))
+                        .append(", error=").append(taskStats.getCount(Outcome.ERROR))
+                        .append(", cancelled=").append(taskStats.getCount(Outcome.CANCELLED))
+                        .append(", timeout=").append(taskStats.getCount(Outcome.TIMEOUT)).append('\n');
+                builder.append(name).append(" queue wait: ").append(taskStats.getQueueWait()).append('\n');
+                builder.append(name).append(" execution: ").append(taskStats.getExecution()).append('\n');
+                builder.append(name).append(" dispatch: ").append(taskStats.getDispatch()).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * The metrics of the tasks with a given name.
+     */
+    public static final class TaskStats {
+        private final LatencyHistogram.Snapshot queueWait;
+        private final LatencyHistogram.Snapshot execution;
+        private final LatencyHistogram.Snapshot dispatch;
+        private final long[] outcomes;
+
+        TaskStats(LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot execution,
+                  LatencyHistogram.Snapshot dispatch, long[] outcomes) {
+            this.queueWait = queueWait;
+            this.execution = execution;
+            this.dispatch = dispatch;
+            this.outcomes = outcomes;
+        }
+
+        /**
+         * Gets the time tasks waited in their executor before starting.
+         */
+        @NonNull
+        public LatencyHistogram.Snapshot getQueueWait() {
+            return queueWait;
+        }
+
+        /**
+         * Gets the time tasks spent running on worker threads.
+         */
+        @NonNull
+        public LatencyHistogram.Snapshot getExecution() {
+            return execution;
+        }
+
+        /**
+         * Gets the time callbacks waited before running on the main thread.
+         */
+        @NonNull
+        public LatencyHistogram.Snapshot getDispatch() {
+            return dispatch;
+        }
+
+        /**
+         * Gets the number of tasks that ended with the given outcome.
+         */
+        public long getCount(@NonNull Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.mardous.concurrency;
+
+/**
+ * Calculates the weight of the entries of a {@link ResultCache}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public interface Weigher {
+
+    /**
+     * Returns the weight of an entry. Weights are measured in arbitrary units,
+     * i.e. the size in bytes of the value, and must not be negative.
+     *
+     * @param key   The key of the entry.
+     * @param value The value of the entry.
+     * @return the weight of the entry.
+     */
+    int weigh(Object key, Object value);
+}
@@ -0,0 +1,256 @@
+package com.mardous.concurrency.internal;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.SaturationPolicy;
+import com.mardous.concurrency.spi.Platform;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A {@link PriorityThreadPoolExecutor} that sizes itself after the work it runs, and whose
+ * queue can be bounded.
+ *
+ * <p>The pool measures how long its tasks take and how much CPU time they consume. Time not
+ * spent on the CPU is time spent blocked (on I/O, locks, etc.), and while a thread is blocked
+ * another one can use the processor, so the pool keeps {@code processors * (1 + blocked / cpu)}
+ * threads, within the given bounds. Pure CPU-bound work keeps one thread per processor, and
+ * the more a pool blocks, the more threads it gets. If the {@link Platform platform} can't
+ * measure CPU time, the pool keeps its minimum size.
+ *
+ * <p>When the queue is full, new work is handled according to the {@link SaturationPolicy}
+ * of the pool. The capacity is checked without locking the queue against concurrent
+ * submissions, so it may be exceeded by as many elements as threads submitting at once.
+ * Elements dropped by {@link SaturationPolicy#DROP_OLDEST} are {@link Rejectable#reject rejected}
+ * when they can be. Plain {@link Runnable}s can't, so they're just discarded: they are counted
+ * along with the rest, and the first one is logged.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class AdaptiveThreadPoolExecutor extends PriorityThreadPoolExecutor {
+
+    // The pool is resized every RESIZE_INTERVAL completed tasks.
+    private static final int RESIZE_INTERVAL = 64;
+    // Weight of the latest window in the smoothed blocking ratio.
+    private static final double SMOOTHING = 0.25;
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+
+    private final int minThreads;
+    private final int maxThreads;
+
+    // Wall and CPU time of the running task, per worker thread.
+    private final ThreadLocal<long[]> startTimes = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+    // Unlike getActiveCount(), it doesn't lock the pool.
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicInteger completedInWindow = new AtomicInteger();
+    private volatile double blockingRatio = -1;
+
+    private volatile int queueCapacity = Integer.MAX_VALUE;
+    private volatile SaturationPolicy saturationPolicy = SaturationPolicy.REJECT;
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicBoolean discardLogged = new AtomicBoolean();
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    /**
+     * @param minThreads The number of threads of the pool until it has measured its work.
+     * @param maxThreads The maximum number of threads the pool can grow to.
+     */
+    public AdaptiveThreadPoolExecutor(int minThreads, int maxThreads, long keepAliveTime,
+                                      TimeUnit unit, ThreadFactory threadFactory) {
+        super(minThreads, keepAliveTime, unit, threadFactory);
+        if (maxThreads < minThreads) {
+            throw new IllegalArgumentException("The maximum number of threads can't be less than the minimum.");
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Bounds the queue of this pool.
+     *
+     * @param queueCapacity The maximum number of elements waiting in the queue,
+     *                      or {@link Integer#MAX_VALUE} for an unbounded queue.
+     * @param policy        What to do with new work when the queue is full.
+     */
+    public void setSaturationPolicy(int queueCapacity, @NonNull SaturationPolicy policy) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("The queue capacity must be greater than zero.");
+        }
+        this.saturationPolicy = policy;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @NonNull
+    public SaturationPolicy getSaturationPolicy() {
+        return saturationPolicy;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Gets the smoothed ratio of blocked time to CPU time of the work run by this pool,
+     * or {@code -1} if it hasn't been measured yet.
+     */
+    public double getBlockingRatio() {
+        return blockingRatio;
+    }
+
+    /**
+     * Gets the number of elements rejected because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Gets the number of elements dropped from the queue to make room for new ones,
+     * including the ones that could not be rejected and were discarded.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Gets the number of elements run by the thread that submitted them because the queue was full.
+     */
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        final int capacity = queueCapacity;
+        // An unbounded queue doesn't need to be locked to get its size.
+        if (capacity != Integer.MAX_VALUE && !isShutdown() && getQueue().size() >= capacity) {
+            saturated(command);
+            return;
+        }
+        super.execute(command);
+    }
+
+    private void saturated(Runnable command) {
+        switch (saturationPolicy) {
+            case CALLER_RUNS:
+                if (!Platform.getMainThreadDispatcher().isMainThread()) {
+                    callerRunsCount.incrementAndGet();
+                    command.run();
+                    return;
+                }
+                // Never block the main thread: the work is queued anyway.
+                super.execute(command);
+                break;
+            case DROP_OLDEST:
+                Runnable oldest = removeOldest();
+                if (oldest != null) {
+                    droppedCount.incrementAndGet();
+                    if (oldest instanceof Rejectable) {
+                        ((Rejectable) oldest).reject(new RejectedExecutionException("Dropped from the queue of a saturated pool."));
+                    } else if (discardLogged.compareAndSet(false, true)) {
+                        // Nobody is told about it, so it's worth a warning, but only once per pool.
+                        Logger.getLogger("SimpleConcurrency").warning("A Runnable was discarded from the queue of a "
+                                + "saturated pool. Further ones are only counted in its PoolStats.");
+                    }
+                }
+                super.execute(command);
+                break;
+            default:
+                rejectedCount.incrementAndGet();
+                throw new RejectedExecutionException("The queue of the pool is full (" + queueCapacity + " elements).");
+        }
+    }
+
+    /**
+     * Removes the element that has been waiting the longest, which is not the next one
+     * to run: the queue is ordered by priority.
+     */
+    private Runnable removeOldest() {
+        while (true) {
+            Runnable oldest = null;
+            long oldestSequence = Long.MAX_VALUE;
+            for (Runnable element : getQueue()) {
+                long sequence = ((Prioritized) element).getSequence();
+                if (sequence < oldestSequence) {
+                    oldestSequence = sequence;
+                    oldest = element;
+                }
+            }
+            if (oldest == null || getQueue().remove(oldest)) {
+                return oldest;
+            }
+            // Taken by a worker thread in the meantime.
+        }
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        runningCount.incrementAndGet();
+        final long[] start = startTimes.get();
+        start[0] = System.nanoTime();
+        start[1] = Platform.getWorkerThreadController().currentThreadCpuTimeNanos();
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        final int running = runningCount.getAndDecrement();
+        final long[] start = startTimes.get();
+        final long cpuEnd = start[1] < 0 ? -1 : Platform.getWorkerThreadController().currentThreadCpuTimeNanos();
+        if (cpuEnd < 0) {
+            return;
+        }
+        final long wall = System.nanoTime() - start[0];
+        final long cpu = cpuEnd - start[1];
+        // CPU-bound threads outnumbering the processors wait for their turn without being
+        // blocked, and each one gets only a share of a processor. That time is discounted,
+        // so a pool that is too big doesn't keep itself from shrinking.
+        final double share = Math.max(1.0, (double) running / CPU_COUNT);
+        blockedNanos.addAndGet(Math.max(0, wall - (long) (cpu * share)));
+        cpuNanos.addAndGet(cpu);
+        if (completedInWindow.incrementAndGet() % RESIZE_INTERVAL == 0) {
+            resize();
+        }
+    }
+
+    private synchronized void resize() {
+        final long blocked = blockedNanos.getAndSet(0);
+        final long cpu = cpuNanos.getAndSet(0);
+        if (blocked == 0 && cpu == 0) {
+            return;
+        }
+        double ratio = (double) blocked / Math.max(1, cpu);
+        final double previous = blockingRatio;
+        if (previous >= 0) {
+            ratio = previous + SMOOTHING * (ratio - previous);
+        }
+        blockingRatio = ratio;
+
+        final double ideal = CPU_COUNT * (1 + ratio);
+        final int target = ideal >= maxThreads ? maxThreads : Math.max(minThreads, (int) Math.round(ideal));
+        final int current = getCorePoolSize();
+        if (target > current) {
+            // The maximum size can never be less than the core size.
+            setMaximumPoolSize(target);
+            setCorePoolSize(target);
+        } else if (target < current) {
+            setCorePoolSize(target);
+            setMaximumPoolSize(target);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.mardous.concurrency.internal;
+
+import com.mardous.concurrency.task.BatchTask;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown when one or more callables of a {@link BatchTask} fail and
+ * the batch was configured to collect errors instead of failing fast.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class BatchException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<?> results;
+    private final Map<Integer, Exception> errors;
+
+    /**
+     * Constructs a {@code BatchException}.
+     *
+     * @param results The results of the batch, {@code null} where a callable failed.
+     * @param errors  The errors of the batch, keyed by the position of the callable.
+     */
+    public BatchException(List<?> results, Map<Integer, Exception> errors) {
+        super(errors.size() + " of " + results.size() + " tasks of the batch failed.");
+        this.results = Collections.unmodifiableList(results);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Gets the results of the batch, in the same order the callables were given.
+     * Failed callables have a {@code null} result.
+     */
+    public List<?> getResults() {
+        return results;
+    }
+
+    /**
+     * Gets the errors of the batch, keyed by the position of the failed callable.
+     */
+    public Map<Integer, Exception> getErrors() {
+        return errors;
+    }
+}
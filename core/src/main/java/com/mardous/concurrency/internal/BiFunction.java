@@ -0,0 +1,16 @@
+package com.mardous.concurrency.internal;
+
+/**
+ * Internal version of {@link java.util.function.BiFunction}.
+ */
+public interface BiFunction<T, U, R> {
+
+    /**
+     * Applies this function to the given arguments.
+     *
+     * @param t the first function argument
+     * @param u the second function argument
+     * @return the function result
+     */
+    R apply(T t, U u) throws Exception;
+}
@@ -0,0 +1,15 @@
+package com.mardous.concurrency.internal;
+
+/**
+ * Internal version of {@link java.util.function.Function}.
+ */
+public interface Function<T, R> {
+
+    /**
+     * Applies this function to the given argument.
+     *
+     * @param t the function argument
+     * @return the function result
+     */
+    R apply(T t) throws Exception;
+}
@@ -0,0 +1,142 @@
+package com.mardous.concurrency.internal;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations, with one bucket per power of two.
+ *
+ * <p>Recording a value takes a few atomic increments and no allocations. The price is
+ * precision: percentiles are only accurate to a factor of two, which is enough to tell
+ * microseconds from milliseconds.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    // The bucket i holds values in [2^(i-1), 2^i), and the bucket 0 holds zeros.
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration, in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        long current;
+        while (nanos > (current = max.get())) {
+            if (max.compareAndSet(current, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of this histogram. Values recorded while the snapshot
+     * is taken may be only partially reflected.
+     */
+    @NonNull
+    public Snapshot snapshot() {
+        long[] values = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            values[i] = buckets.get(i);
+        }
+        return new Snapshot(values, count.get(), sum.get(), max.get());
+    }
+
+    /**
+     * An immutable copy of the contents of a {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of recorded durations.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the mean of the recorded durations, in nanoseconds.
+         */
+        public long getMean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * Gets the longest recorded duration, in nanoseconds.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets an upper bound of the given percentile of the recorded durations, in nanoseconds.
+         *
+         * @param percentile The percentile, between 0 and 100.
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+            }
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    long upperBound = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upperBound, max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Gets the number of durations recorded in every bucket. The bucket {@code i}
+         * holds durations of at least {@code 2^(i-1)} and less than {@code 2^i} nanoseconds,
+         * and the bucket 0 holds durations of zero.
+         */
+        @NonNull
+        public long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + getMean() + "ns, p50=" + getPercentile(50)
+                    + "ns, p99=" + getPercentile(99) + "ns, max=" + max + "ns";
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mardous.concurrency.internal;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A key qualified by the computation it belongs to, so that equal keys given to
+ * different computations, which may not even have the same type of result, don't
+ * share entries in the registries where they meet.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class NamespacedKey {
+
+    private final Object namespace;
+    private final Object key;
+
+    /**
+     * @param namespace The computation, i.e. the class of the callable that runs it.
+     * @param key       The key given by the user.
+     */
+    public NamespacedKey(@NonNull Object namespace, @NonNull Object key) {
+        this.namespace = namespace;
+        this.key = key;
+    }
+
+    /**
+     * Gets the key given by the user.
+     */
+    @NonNull
+    public Object getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NamespacedKey)) {
+            return false;
+        }
+        NamespacedKey that = (NamespacedKey) o;
+        return namespace.equals(that.namespace) && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * namespace.hashCode() + key.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return namespace + "/" + key;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mardous.concurrency.internal;
+
+/**
+ * An element of the work queue of a {@link PriorityThreadPoolExecutor}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public interface Prioritized {
+
+    /**
+     * Gets the key used to sort this element. Elements with lower keys run first.
+     */
+    long getPriorityKey();
+
+    /**
+     * Gets the sequence number of this element, used to keep FIFO order among
+     * elements with the same key.
+     */
+    long getSequence();
+}
@@ -0,0 +1,112 @@
+package com.mardous.concurrency.internal;
+
+import androidx.annotation.NonNull;
+
+import java.util.Comparator;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ThreadPoolExecutor} whose work queue is ordered by {@link Prioritized#getPriorityKey() priority}.
+ *
+ * <p>Submitted actions that are not {@link Prioritized} are given the same priority as
+ * {@link com.mardous.concurrency.task.TaskPriority#NORMAL normal} tasks.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class PriorityThreadPoolExecutor extends ThreadPoolExecutor {
+
+    /**
+     * The aging applied to actions that are not {@link Prioritized}. Matches {@code TaskPriority.NORMAL}.
+     */
+    private static final long DEFAULT_AGING_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * Orders {@link Prioritized} elements by their key, and then by their sequence.
+     */
+    public static final Comparator<Runnable> ORDER = (r1, r2) -> {
+        Prioritized p1 = (Prioritized) r1;
+        Prioritized p2 = (Prioritized) r2;
+        // Keys are based on System.nanoTime(), so they're compared by their difference.
+        long diff = p1.getPriorityKey() - p2.getPriorityKey();
+        if (diff != 0) {
+            return diff < 0 ? -1 : 1;
+        }
+        return Long.compare(p1.getSequence(), p2.getSequence());
+    };
+
+    public PriorityThreadPoolExecutor(int threads, long keepAliveTime, TimeUnit unit, ThreadFactory threadFactory) {
+        super(threads, threads, keepAliveTime, unit, new PriorityBlockingQueue<>(11, ORDER), threadFactory);
+    }
+
+    /**
+     * Gets the next sequence number for a {@link Prioritized} element.
+     */
+    public static long nextSequence() {
+        return SEQUENCE.getAndIncrement();
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        super.execute(command instanceof Prioritized ? command : new DefaultEntry(command));
+    }
+
+    /**
+     * Changes the priority of an element that may still be waiting in the queue.
+     *
+     * @param entry  The element to move.
+     * @param change The action that updates the key of the element. It is always run, but
+     *               the element is only moved if it was still waiting in the queue.
+     * @return {@code true} if the element was moved, {@code false} if it had already been
+     * taken by a worker thread (or was never queued).
+     */
+    public boolean reprioritize(@NonNull Runnable entry, @NonNull Runnable change) {
+        if (getQueue().remove(entry)) {
+            change.run();
+            // Goes through execute(), not straight to the queue, so the pool still starts a
+            // thread for it if every thread has timed out in the meantime.
+            try {
+                super.execute(entry);
+            } catch (RejectedExecutionException e) {
+                // The pool has been shut down.
+                if (entry instanceof Rejectable) {
+                    ((Rejectable) entry).reject(e);
+                }
+            }
+            return true;
+        }
+        change.run();
+        return false;
+    }
+
+    private static final class DefaultEntry implements Runnable, Prioritized {
+        private final Runnable command;
+        private final long priorityKey = System.nanoTime() + DEFAULT_AGING_NANOS;
+        private final long sequence = nextSequence();
+
+        DefaultEntry(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            command.run();
+        }
+
+        @Override
+        public long getPriorityKey() {
+            return priorityKey;
+        }
+
+        @Override
+        public long getSequence() {
+            return sequence;
+        }
+    }
+}
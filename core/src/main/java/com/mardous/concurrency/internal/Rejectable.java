@@ -0,0 +1,21 @@
+package com.mardous.concurrency.internal;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Work that must be told when an executor gives up on it, i.e. when it's dropped
+ * from the queue of a saturated pool, so it can finish instead of waiting forever.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public interface Rejectable {
+
+    /**
+     * Called when this work is not going to be run.
+     *
+     * @param e The reason why it was rejected.
+     */
+    void reject(@NonNull RejectedExecutionException e);
+}
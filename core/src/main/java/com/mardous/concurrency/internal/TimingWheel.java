@@ -0,0 +1,384 @@
+package com.mardous.concurrency.internal;
+
+import androidx.annotation.NonNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hashed timing wheel, used to run actions after a delay.
+ *
+ * <p>Time is divided in ticks, and the wheel has a fixed number of buckets, one per tick, holding
+ * the actions that expire on that tick (or on the same tick of a later round). A single thread
+ * advances the wheel one bucket per tick, so scheduling and cancelling are O(1) operations, no
+ * matter how many actions are pending. The price is precision: actions run on the first tick
+ * after their delay has elapsed.
+ *
+ * <p>Actions run on the thread of the wheel, so they must be short: i.e. cancelling a task, or
+ * submitting some work to an executor. The thread waits without ticking while the wheel is empty.
+ *
+ * <p>A {@link #manual(long, TimeUnit, int) manual} wheel has no thread nor clock of its own: its
+ * time only moves when it's {@link #advance(long, TimeUnit) advanced}, which makes the code
+ * scheduling on it testable without waiting.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class TimingWheel {
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private static volatile TimingWheel sharedWheel;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final String threadName;
+    private final boolean manual;
+
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    // Scheduled timeouts that have neither expired nor been removed after their cancellation.
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object idleLock = new Object();
+
+    private volatile Thread thread;
+    private long startNanos;
+    // The time of a manual wheel.
+    private volatile long manualNanos;
+    // Only touched by the thread advancing the wheel.
+    private long tick;
+
+    /**
+     * Creates a new wheel. Its thread is started the first time an action is scheduled.
+     *
+     * @param tickDuration  The duration of a tick.
+     * @param unit          The unit of the duration.
+     * @param ticksPerWheel The number of buckets, rounded up to a power of two.
+     * @param threadName    The name of the thread of the wheel.
+     */
+    public TimingWheel(long tickDuration, @NonNull TimeUnit unit, int ticksPerWheel, @NonNull String threadName) {
+        this(tickDuration, unit, ticksPerWheel, threadName, false);
+    }
+
+    private TimingWheel(long tickDuration, TimeUnit unit, int ticksPerWheel, String threadName, boolean manual) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("The tick duration must be greater than zero.");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("The number of ticks must be between 1 and 2^30.");
+        }
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.threadName = threadName;
+        this.manual = manual;
+    }
+
+    /**
+     * Creates a wheel whose time only moves when it's {@link #advance(long, TimeUnit) advanced}.
+     * Its actions run on the thread advancing it.
+     *
+     * @param tickDuration  The duration of a tick.
+     * @param unit          The unit of the duration.
+     * @param ticksPerWheel The number of buckets, rounded up to a power of two.
+     */
+    @NonNull
+    public static TimingWheel manual(long tickDuration, @NonNull TimeUnit unit, int ticksPerWheel) {
+        return new TimingWheel(tickDuration, unit, ticksPerWheel, "", true);
+    }
+
+    /**
+     * Gets the wheel shared by the tasks of this library. It ticks every 10 milliseconds.
+     */
+    @NonNull
+    public static TimingWheel getShared() {
+        TimingWheel wheel = sharedWheel;
+        if (wheel == null) {
+            synchronized (TimingWheel.class) {
+                wheel = sharedWheel;
+                if (wheel == null) {
+                    wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 512, "SimpleConcurrency-Timer");
+                    sharedWheel = wheel;
+                }
+            }
+        }
+        return wheel;
+    }
+
+    /**
+     * Schedules an action to run once the given delay has elapsed.
+     *
+     * @param action The action to run, on the thread of the wheel.
+     * @param delay  The delay.
+     * @param unit   The unit of the delay.
+     * @return a handle that can be used to cancel the action.
+     */
+    @NonNull
+    public Timeout schedule(@NonNull Runnable action, long delay, @NonNull TimeUnit unit) {
+        start();
+        long deadline = nanoTime() + Math.max(0, unit.toNanos(delay)) - startNanos;
+        Timeout timeout = new Timeout(this, action, deadline);
+        scheduled.add(timeout);
+        if (pending.getAndIncrement() == 0) {
+            synchronized (idleLock) {
+                idleLock.notifyAll();
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * Gets the number of actions waiting to run.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Gets the current time of this wheel, in nanoseconds. Like {@link System#nanoTime()}, which
+     * it returns unless the wheel is {@link #manual(long, TimeUnit, int) manual}, it's only
+     * meaningful to measure elapsed time.
+     */
+    public long nanoTime() {
+        return manual ? manualNanos : System.nanoTime();
+    }
+
+    /**
+     * Moves the time of a {@link #manual(long, TimeUnit, int) manual} wheel forward, running
+     * the actions that expire meanwhile on the calling thread.
+     *
+     * @param duration The time to move forward.
+     * @param unit     The unit of the duration.
+     * @throws IllegalStateException if this wheel is not manual.
+     */
+    public synchronized void advance(long duration, @NonNull TimeUnit unit) {
+        if (!manual) {
+            throw new IllegalStateException("Only a manual wheel can be advanced.");
+        }
+        final long target = manualNanos + Math.max(0, unit.toNanos(duration));
+        for (; ; ) {
+            long deadline = tickNanos * (tick + 1);
+            if (deadline > target) {
+                break;
+            }
+            manualNanos = deadline;
+            runTick(deadline);
+        }
+        manualNanos = target;
+    }
+
+    private void start() {
+        if (manual) {
+            return;
+        }
+        if (thread == null) {
+            synchronized (this) {
+                if (thread == null) {
+                    startNanos = System.nanoTime();
+                    Thread worker = new Thread(this::run, threadName);
+                    worker.setDaemon(true);
+                    thread = worker;
+                    worker.start();
+                }
+            }
+        }
+    }
+
+    private void run() {
+        for (; ; ) {
+            try {
+                runTick(awaitNextTick());
+            } catch (InterruptedException ignored) {
+                // The thread of the wheel is never interrupted on purpose, keep going.
+            }
+        }
+    }
+
+    /**
+     * Waits until the current tick has elapsed, and returns its deadline.
+     */
+    private long awaitNextTick() throws InterruptedException {
+        if (pending.get() == 0) {
+            synchronized (idleLock) {
+                while (pending.get() == 0) {
+                    idleLock.wait();
+                }
+            }
+            // The wheel was empty, so it's safe to skip the ticks that elapsed meanwhile.
+            tick = Math.max(tick, (System.nanoTime() - startNanos) / tickNanos);
+        }
+        long deadline = tickNanos * (tick + 1);
+        for (; ; ) {
+            long remaining = deadline - (System.nanoTime() - startNanos);
+            if (remaining <= 0) {
+                return deadline;
+            }
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    private void runTick(long deadline) {
+        removeCancelled();
+        transferScheduled();
+        expire(wheel[(int) (tick & mask)], deadline);
+        tick++;
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                break;
+            }
+            if (timeout.state == Timeout.STATE_CANCELLED) {
+                pending.decrementAndGet();
+                continue;
+            }
+            long expiresOnTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiresOnTick - tick) / wheel.length;
+            // Timeouts whose tick has already passed expire on the current one.
+            long bucketTick = Math.max(expiresOnTick, tick);
+            wheel[(int) (bucketTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket, long deadline) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                bucket.remove(timeout);
+                pending.decrementAndGet();
+                timeout.expire();
+            } else if (timeout.state == Timeout.STATE_CANCELLED) {
+                bucket.remove(timeout);
+                pending.decrementAndGet();
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * A handle of an action scheduled on a {@link TimingWheel}.
+     */
+    public static final class Timeout {
+        private static final int STATE_PENDING = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimingWheel timingWheel;
+        private final Runnable action;
+        private final long deadline;
+        private volatile int state = STATE_PENDING;
+
+        // Only touched by the thread advancing the wheel.
+        long remainingRounds;
+        Bucket bucket;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(TimingWheel timingWheel, Runnable action, long deadline) {
+            this.timingWheel = timingWheel;
+            this.action = action;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the action, unless it has already run.
+         *
+         * @return {@code true} if the action was cancelled, {@code false} if it had
+         * already run or been cancelled.
+         */
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, STATE_PENDING, STATE_CANCELLED)) {
+                return false;
+            }
+            // Lets the wheel release it on the next tick, instead of once its bucket comes around.
+            timingWheel.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Returns true if the action was cancelled before it ran.
+         */
+        public boolean isCancelled() {
+            return state == STATE_CANCELLED;
+        }
+
+        /**
+         * Returns true if the action has run.
+         */
+        public boolean isExpired() {
+            return state == STATE_EXPIRED;
+        }
+
+        void expire() {
+            if (STATE_UPDATER.compareAndSet(this, STATE_PENDING, STATE_EXPIRED)) {
+                try {
+                    action.run();
+                } catch (Throwable t) {
+                    Logger.getLogger("SimpleConcurrency").log(Level.WARNING, "An error occurred while running a timed action.", t);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+        Timeout head;
+        Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
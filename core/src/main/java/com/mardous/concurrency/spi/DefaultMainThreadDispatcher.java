@@ -0,0 +1,55 @@
+package com.mardous.concurrency.spi;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link MainThreadDispatcher} used when the platform does not provide one.
+ * It runs every action, in order, on a single daemon thread.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+final class DefaultMainThreadDispatcher implements MainThreadDispatcher {
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService delayer;
+    private volatile Thread thread;
+
+    DefaultMainThreadDispatcher() {
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "SimpleConcurrency-Main");
+            t.setDaemon(true);
+            thread = t;
+            return t;
+        });
+        // Delayed actions wait here, then they're handed to the main thread.
+        this.delayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SimpleConcurrency-Main-Delayer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void post(@NonNull Runnable action) {
+        executor.execute(action);
+    }
+
+    @Override
+    public void postDelayed(@NonNull Runnable action, long delayMillis) {
+        if (delayMillis <= 0) {
+            post(action);
+        } else {
+            delayer.schedule(() -> post(action), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Thread.currentThread() == thread;
+    }
+}
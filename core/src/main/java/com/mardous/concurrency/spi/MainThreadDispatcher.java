@@ -0,0 +1,35 @@
+package com.mardous.concurrency.spi;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Runs actions on the thread that owns the user interface (the <i>main</i> thread).
+ *
+ * <p>The task engine never talks to the platform directly; every callback is handed
+ * to the implementation registered in {@link Platform}. On Android, the adapter module
+ * provides one backed by the main {@code Looper}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public interface MainThreadDispatcher {
+
+    /**
+     * Posts an action to be run on the main thread.
+     *
+     * @param action The action to run.
+     */
+    void post(@NonNull Runnable action);
+
+    /**
+     * Posts an action to be run on the main thread after some amount of time.
+     *
+     * @param action      The action to run.
+     * @param delayMillis The amount of milliseconds to wait before running the action.
+     */
+    void postDelayed(@NonNull Runnable action, long delayMillis);
+
+    /**
+     * Returns true if the calling thread is the main thread.
+     */
+    boolean isMainThread();
+}
@@ -0,0 +1,189 @@
+package com.mardous.concurrency.spi;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.mardous.concurrency.Utils;
+import com.mardous.concurrency.task.TaskPriority;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.logging.Logger;
+
+/**
+ * Holds the platform-specific pieces used by the task engine.
+ *
+ * <p>By default, implementations are discovered through {@link ServiceLoader}, so adding the
+ * Android adapter module to the classpath is enough to deliver callbacks on the main
+ * {@code Looper}. When nothing is found, callbacks run on a single daemon thread and worker
+ * threads only get their Java priority adjusted, which is what a plain JVM needs; a warning
+ * is logged the first time the default dispatcher is used.
+ *
+ * <p>Implementations can also be installed explicitly, before executing any task.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class Platform {
+
+    private static volatile MainThreadDispatcher mainThreadDispatcher;
+    private static volatile WorkerThreadController workerThreadController;
+    private static volatile TaskInstrumentation taskInstrumentation;
+
+    private Platform() {
+    }
+
+    /**
+     * Gets the {@link MainThreadDispatcher} in use.
+     */
+    @NonNull
+    public static MainThreadDispatcher getMainThreadDispatcher() {
+        MainThreadDispatcher dispatcher = mainThreadDispatcher;
+        if (dispatcher == null) {
+            synchronized (Platform.class) {
+                dispatcher = mainThreadDispatcher;
+                if (dispatcher == null) {
+                    dispatcher = load(MainThreadDispatcher.class);
+                    if (dispatcher == null) {
+                        // Expected on a plain JVM, but on Android it means the adapter module is
+                        // missing or its service files were stripped, and callbacks would
+                        // silently run off the main thread.
+                        Logger.getLogger("SimpleConcurrency").warning("No MainThreadDispatcher was found, so task "
+                                + "callbacks will run on a background thread. Add the Android adapter module, or "
+                                + "install one with Platform.setMainThreadDispatcher().");
+                        dispatcher = new DefaultMainThreadDispatcher();
+                    }
+                    mainThreadDispatcher = dispatcher;
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Installs the {@link MainThreadDispatcher} that will deliver task callbacks.
+     *
+     * @param dispatcher The dispatcher to use.
+     */
+    public static void setMainThreadDispatcher(@NonNull MainThreadDispatcher dispatcher) {
+        Utils.assertNonNull(dispatcher, "MainThreadDispatcher");
+        mainThreadDispatcher = dispatcher;
+    }
+
+    /**
+     * Gets the {@link WorkerThreadController} in use.
+     */
+    @NonNull
+    public static WorkerThreadController getWorkerThreadController() {
+        WorkerThreadController controller = workerThreadController;
+        if (controller == null) {
+            synchronized (Platform.class) {
+                controller = workerThreadController;
+                if (controller == null) {
+                    controller = load(WorkerThreadController.class);
+                    if (controller == null) {
+                        controller = new DefaultWorkerThreadController();
+                    }
+                    workerThreadController = controller;
+                }
+            }
+        }
+        return controller;
+    }
+
+    /**
+     * Installs the {@link WorkerThreadController} that will prepare worker threads.
+     *
+     * @param controller The controller to use.
+     */
+    public static void setWorkerThreadController(@NonNull WorkerThreadController controller) {
+        Utils.assertNonNull(controller, "WorkerThreadController");
+        workerThreadController = controller;
+    }
+
+    /**
+     * Gets the {@link TaskInstrumentation} in use, if any.
+     *
+     * @return the instrumentation, or {@code null} if it's disabled.
+     */
+    @Nullable
+    public static TaskInstrumentation getTaskInstrumentation() {
+        return taskInstrumentation;
+    }
+
+    /**
+     * Installs the {@link TaskInstrumentation} that will measure tasks. Only the tasks
+     * created afterwards are measured.
+     *
+     * @param instrumentation The instrumentation to use, or {@code null} to disable it.
+     */
+    public static void setTaskInstrumentation(@Nullable TaskInstrumentation instrumentation) {
+        taskInstrumentation = instrumentation;
+    }
+
+    private static <S> S load(Class<S> service) {
+        Iterator<S> implementations = ServiceLoader.load(service, Platform.class.getClassLoader()).iterator();
+        return implementations.hasNext() ? implementations.next() : null;
+    }
+
+    private static final class DefaultWorkerThreadController implements WorkerThreadController {
+        @Override
+        public void onWorkerStart(@NonNull TaskPriority priority) {
+            int threadPriority;
+            switch (priority) {
+                case IMMEDIATE:
+                    threadPriority = Thread.NORM_PRIORITY + 2;
+                    break;
+                case HIGH:
+                    threadPriority = Thread.NORM_PRIORITY + 1;
+                    break;
+                case LOW:
+                    threadPriority = Thread.MIN_PRIORITY;
+                    break;
+                default:
+                    threadPriority = Thread.NORM_PRIORITY;
+                    break;
+            }
+            Thread thread = Thread.currentThread();
+            if (thread.getPriority() != threadPriority) {
+                thread.setPriority(threadPriority);
+            }
+        }
+
+        @Override
+        public void onWorkerFinish() {
+        }
+
+        @Override
+        public long currentThreadCpuTimeNanos() {
+            return ThreadCpuClock.currentThreadCpuTimeNanos();
+        }
+    }
+
+    /**
+     * Reads the CPU time of threads through the management API, which is only loaded
+     * the first time it's needed, since it's missing on Android.
+     */
+    private static final class ThreadCpuClock {
+        private static final ThreadMXBean THREADS = threadMXBean();
+
+        static long currentThreadCpuTimeNanos() {
+            return THREADS != null ? THREADS.getCurrentThreadCpuTime() : -1;
+        }
+
+        private static ThreadMXBean threadMXBean() {
+            try {
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                if (threads.isCurrentThreadCpuTimeSupported()) {
+                    if (!threads.isThreadCpuTimeEnabled()) {
+                        threads.setThreadCpuTimeEnabled(true);
+                    }
+                    return threads;
+                }
+            } catch (Throwable e) {
+                // Not available, or not allowed.
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.mardous.concurrency.spi;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Receives measurements taken around the lifecycle of every task.
+ *
+ * <p>Instrumentation is disabled by default. It's enabled by installing an implementation,
+ * i.e. the built-in {@link com.mardous.concurrency.TaskMetrics}, through
+ * {@link Platform#setTaskInstrumentation(TaskInstrumentation)} before creating the tasks to
+ * measure. While disabled, tasks take no measurements at all.
+ *
+ * <p>Methods may be called concurrently, from any thread, so implementations must be thread-safe
+ * and return quickly.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public interface TaskInstrumentation {
+
+    /**
+     * Records the time a task waited in its executor before a worker thread picked it up.
+     *
+     * @param taskName The name of the task.
+     * @param nanos    The elapsed time, in nanoseconds.
+     */
+    void recordQueueWait(@NonNull String taskName, long nanos);
+
+    /**
+     * Records the time a task spent running on a worker thread.
+     *
+     * @param taskName The name of the task.
+     * @param nanos    The elapsed time, in nanoseconds.
+     */
+    void recordExecution(@NonNull String taskName, long nanos);
+
+    /**
+     * Records the time a callback of a task waited before running on the main thread.
+     *
+     * @param taskName The name of the task.
+     * @param nanos    The elapsed time, in nanoseconds.
+     */
+    void recordDispatch(@NonNull String taskName, long nanos);
+
+    /**
+     * Records how a task ended.
+     *
+     * @param taskName The name of the task.
+     * @param outcome  The outcome of the task.
+     */
+    void recordOutcome(@NonNull String taskName, @NonNull Outcome outcome);
+
+    /**
+     * The ways a task can end.
+     */
+    enum Outcome {
+        /**
+         * The task finished and posted its result.
+         */
+        SUCCESS,
+        /**
+         * The task finished with an error.
+         */
+        ERROR,
+        /**
+         * The task was cancelled.
+         */
+        CANCELLED,
+        /**
+         * The task was cancelled because its deadline expired.
+         */
+        TIMEOUT
+    }
+}
@@ -0,0 +1,36 @@
+package com.mardous.concurrency.spi;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.task.TaskPriority;
+
+/**
+ * Prepares the worker threads that run tasks, i.e. by adjusting their priority, and measures
+ * how much CPU time they consume.
+ *
+ * <p>The implementation in use is the one registered in {@link Platform}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public interface WorkerThreadController {
+
+    /**
+     * Called on the worker thread right before a task starts its work.
+     *
+     * @param priority The priority of the task, which may be used to
+     *                 adjust the priority of the thread.
+     */
+    void onWorkerStart(@NonNull TaskPriority priority);
+
+    /**
+     * Called on the worker thread right after a task has completed its work.
+     */
+    void onWorkerFinish();
+
+    /**
+     * Gets the CPU time consumed so far by the calling thread, used by the adaptive pools to
+     * tell how much of the time of their tasks is spent blocked.
+     *
+     * @return The CPU time in nanoseconds, or {@code -1} if it can't be measured.
+     */
+    long currentThreadCpuTimeNanos();
+}
@@ -0,0 +1,23 @@
+package com.mardous.concurrency.task;
+
+/**
+ * What a {@link StreamTask} does when its buffer is full, that is,
+ * when the main thread is not keeping up with the producer.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ * @see StreamTaskBuilder#onBackpressure(BackpressurePolicy)
+ */
+public enum BackpressurePolicy {
+    /**
+     * The producer waits until there is room in the buffer. No item is lost.
+     */
+    SUSPEND,
+    /**
+     * The oldest item in the buffer is dropped to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * The new item is dropped.
+     */
+    DROP_LATEST
+}
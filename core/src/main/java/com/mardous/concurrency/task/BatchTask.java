@@ -0,0 +1,192 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import com.mardous.concurrency.AsyncBatchCallback;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.internal.BatchException;
+import com.mardous.concurrency.spi.Platform;
+import com.mardous.concurrency.spi.WorkerThreadController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A task that runs a group of {@link AsyncCallable}s as a single unit.
+ *
+ * <p>The whole group is attached to the lifecycle only once, and its outcome is
+ * delivered through a single {@link AsyncBatchCallback}. The callables run on the
+ * executor of the builder, at most {@link BatchTaskBuilder#maxConcurrency(int)} at a time.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class BatchTask<T> extends Task {
+
+    private final List<AsyncCallable<T>> callables;
+    private final AsyncBatchCallback<T> callback;
+    private final int maxConcurrency;
+    private final boolean failFast;
+    private final boolean streamResults;
+
+    private final Object[] results;
+    private final Map<Integer, Exception> errors = new ConcurrentSkipListMap<>();
+    private final AtomicReferenceArray<TaskFuture<?>> futures;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicInteger remaining;
+    // The number of attempts of every callable, only touched by its attempt in progress.
+    private final int[] attempts;
+
+    BatchTask(BatchTaskBuilder<T> taskBuilder, List<AsyncCallable<T>> callables, AsyncBatchCallback<T> callback) {
+        super(taskBuilder, callback);
+        this.callables = callables;
+        this.callback = callback;
+        this.maxConcurrency = taskBuilder.maxConcurrency;
+        this.failFast = taskBuilder.failFast;
+        this.streamResults = taskBuilder.streamResults;
+        this.results = new Object[callables.size()];
+        this.futures = new AtomicReferenceArray<>(callables.size());
+        this.remaining = new AtomicInteger(callables.size());
+        this.attempts = new int[callables.size()];
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (setState(State.CANCELLED)) {
+            cancelCallables(mayInterruptIfRunning);
+            return true;
+        }
+        return isCancelled();
+    }
+
+    @Override
+    void onPriorityChanged(TaskPriority priority) {
+        for (int i = 0; i < futures.length(); i++) {
+            reprioritize(futures.get(i), priority);
+        }
+    }
+
+    @NonNull
+    @Override
+    public BatchTask<T> execute() {
+        setState(State.RUNNING);
+
+        if (callables.isEmpty()) {
+            finishWith(new ArrayList<T>(), true);
+            return this;
+        }
+        int lanes = Math.min(maxConcurrency, callables.size());
+        for (int i = 0; i < lanes; i++) {
+            submitNext();
+        }
+        return this;
+    }
+
+    private void submitNext() {
+        if (getState() != State.RUNNING) {
+            return;
+        }
+        final int index = nextIndex.getAndIncrement();
+        if (index < callables.size()) {
+            submit(index);
+        }
+    }
+
+    private void submit(final int index) {
+        TaskFuture<?> future = new TaskFuture<>(() -> runCallable(index), this);
+        futures.set(index, future);
+        // A cancellation may have happened before the future was published.
+        if (getState() == State.RUNNING) {
+            submit(future);
+        }
+    }
+
+    @WorkerThread
+    private void runCallable(int index) {
+        AsyncCallable<T> callable = callables.get(index);
+        TaskConnection connection = callable;
+        connection.mTask = this;
+        try {
+            attempts[index]++;
+            WorkerThreadController controller = Platform.getWorkerThreadController();
+            controller.onWorkerStart(priority);
+            T result = callable.call();
+            controller.onWorkerFinish();
+            results[index] = result;
+            if (streamResults && !isCancelled()) {
+                post(() -> callback.onItemResult(index, result));
+            }
+        } catch (Exception e) {
+            if (scheduleRetry(index, e)) {
+                return;
+            }
+            if (failFast) {
+                futures.set(index, null);
+                postError(e);
+                cancelCallables(true);
+                return;
+            }
+            errors.put(index, e);
+            if (streamResults && !isCancelled()) {
+                post(() -> callback.onItemError(index, e));
+            }
+        } finally {
+            connection.mTask = null;
+            futures.set(index, null);
+        }
+
+        if (remaining.decrementAndGet() == 0) {
+            complete();
+        } else {
+            submitNext();
+        }
+    }
+
+    /**
+     * Schedules another attempt of the given callable, if the {@link RetryPolicy retry policy}
+     * allows it. Callables are retried independently from each other.
+     */
+    @WorkerThread
+    private boolean scheduleRetry(final int index, Exception e) {
+        RetryPolicy policy = retryPolicy;
+        if (policy == null || isCancelled() || !policy.shouldRetry(attempts[index], e)) {
+            return false;
+        }
+        RetryPolicy.schedule(() -> {
+            if (getState() == State.RUNNING) {
+                submit(index);
+            }
+        }, policy.getDelayMillis(attempts[index]));
+        return true;
+    }
+
+    @WorkerThread
+    @SuppressWarnings("unchecked")
+    private void complete() {
+        List<T> list = (List<T>) Arrays.asList(results);
+        if (errors.isEmpty()) {
+            finishWith(list, true);
+        } else {
+            postError(new BatchException(list, errors));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void deliverResult(Object result, boolean acceptable) {
+        callback.onSuccess((List<T>) result);
+    }
+
+    private void cancelCallables(boolean mayInterruptIfRunning) {
+        for (int i = 0; i < futures.length(); i++) {
+            TaskFuture<?> future = futures.getAndSet(i, null);
+            if (future != null) {
+                future.cancel(mayInterruptIfRunning);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncBatchCallback;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.Utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The {@link TaskBuilder builder} used to create {@link BatchTask batch tasks}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class BatchTaskBuilder<T> extends TaskBuilder<BatchTask<T>> {
+
+    private final List<AsyncCallable<T>> callables;
+    private final AsyncBatchCallback<T> callback;
+
+    int maxConcurrency = Integer.MAX_VALUE;
+    boolean failFast;
+    boolean streamResults;
+
+    public BatchTaskBuilder(@NonNull Collection<? extends AsyncCallable<T>> callables,
+                            @NonNull AsyncBatchCallback<T> callback) {
+        Utils.assertNonNull(callables, "Callables");
+        Utils.assertNonNull(callback, "Callback");
+        this.callables = new ArrayList<>(callables);
+        this.callback = callback;
+    }
+
+    /**
+     * Limits the number of callables of the batch that can run at the same time.
+     * By default, there is no limit other than the one of the executor.
+     *
+     * @param maxConcurrency The maximum number of callables running at once.
+     * @return This same builder.
+     */
+    public BatchTaskBuilder<T> maxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("The maximum concurrency must be greater than zero.");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Configures what happens when a callable of the batch fails.
+     *
+     * <p>When {@code true}, the batch fails with that error right away and the remaining
+     * callables are cancelled. When {@code false} (the default), every callable runs and,
+     * if any of them failed, the batch fails with a
+     * {@link com.mardous.concurrency.internal.BatchException} collecting every error.
+     *
+     * @param failFast Whether the batch should fail on the first error.
+     * @return This same builder.
+     */
+    public BatchTaskBuilder<T> failFast(boolean failFast) {
+        this.failFast = failFast;
+        return this;
+    }
+
+    /**
+     * Configures whether the outcome of each callable should be delivered as soon as
+     * it's available, through {@link AsyncBatchCallback#onItemResult(int, Object)} and
+     * {@link AsyncBatchCallback#onItemError(int, Exception)}. Disabled by default.
+     *
+     * @param streamResults Whether partial results should be delivered.
+     * @return This same builder.
+     */
+    public BatchTaskBuilder<T> streamResults(boolean streamResults) {
+        this.streamResults = streamResults;
+        return this;
+    }
+
+    @Override
+    public BatchTask<T> create() {
+        return new BatchTask<>(this, callables, callback);
+    }
+
+    @Override
+    public BatchTask<T> execute() {
+        return create().execute();
+    }
+}
@@ -0,0 +1,300 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.mardous.concurrency.internal.PriorityThreadPoolExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Limits the number of tasks that can use a resource at the same time, such as a database or
+ * a disk, whatever the pools they run on.
+ *
+ * <p>Every bulkhead is identified by a key, given to {@link TaskBuilder#limitConcurrency(Object, int)}.
+ * Work exceeding the limit waits in the bulkhead instead of in the pool, so it doesn't take a
+ * thread that other tasks could use: a slow resource only slows down its own tasks. Waiting work
+ * is ordered by priority, just like in the shared pools.
+ *
+ * <p>A permit is released once the work holding it has run, has been cancelled before running,
+ * or has been rejected by its executor. Custom executors must therefore run, reject or cancel
+ * everything they accept; the shared pools finish the work they discard with a
+ * {@link RejectedExecutionException}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class Bulkhead {
+
+    private static final ConcurrentMap<Object, Bulkhead> BULKHEADS = new ConcurrentHashMap<>();
+
+    private final Object key;
+    private final PriorityQueue<TaskFuture<?>> pending = new PriorityQueue<>(11, PriorityThreadPoolExecutor.ORDER);
+
+    // Guarded by this bulkhead.
+    private int maxConcurrency;
+    private int activeCount;
+    private long admittedCount;
+    private long queuedCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    private Bulkhead(Object key, int maxConcurrency) {
+        this.key = key;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Gets the bulkhead of the given key, creating it the first time. If it already
+     * exists, its limit is updated.
+     */
+    @NonNull
+    static Bulkhead obtain(@NonNull Object key, int maxConcurrency) {
+        Bulkhead bulkhead = BULKHEADS.get(key);
+        if (bulkhead == null) {
+            Bulkhead created = new Bulkhead(key, maxConcurrency);
+            bulkhead = BULKHEADS.putIfAbsent(key, created);
+            if (bulkhead == null) {
+                return created;
+            }
+        }
+        bulkhead.setMaxConcurrency(maxConcurrency);
+        return bulkhead;
+    }
+
+    /**
+     * Gets the bulkhead of the given key.
+     *
+     * @return The bulkhead, or {@code null} if no task has been limited with that key.
+     */
+    @Nullable
+    public static Bulkhead get(@NonNull Object key) {
+        return BULKHEADS.get(key);
+    }
+
+    /**
+     * Gets every bulkhead created so far.
+     */
+    @NonNull
+    public static Collection<Bulkhead> getAll() {
+        return Collections.unmodifiableCollection(new ArrayList<>(BULKHEADS.values()));
+    }
+
+    /**
+     * Gets the key of this bulkhead.
+     */
+    @NonNull
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the maximum number of tasks allowed to run at the same time.
+     */
+    public synchronized int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Gets the statistics of this bulkhead.
+     */
+    @NonNull
+    public synchronized Stats getStats() {
+        return new Stats(activeCount, pending.size(), admittedCount, queuedCount, totalWaitNanos, maxWaitNanos);
+    }
+
+    private void setMaxConcurrency(int maxConcurrency) {
+        int released;
+        synchronized (this) {
+            if (this.maxConcurrency == maxConcurrency) {
+                return;
+            }
+            this.maxConcurrency = maxConcurrency;
+            released = maxConcurrency - activeCount;
+        }
+        // A higher limit lets waiting work run right away.
+        for (int i = 0; i < released; i++) {
+            TaskFuture<?> next;
+            synchronized (this) {
+                if (activeCount >= this.maxConcurrency || (next = pollPending()) == null) {
+                    return;
+                }
+                activeCount++;
+            }
+            dispatch(next);
+        }
+    }
+
+    /**
+     * Submits the given future to the executor of its task, or queues it if there
+     * are no permits available.
+     */
+    void submit(TaskFuture<?> future) {
+        synchronized (this) {
+            if (activeCount >= maxConcurrency) {
+                future.queuedNanos = System.nanoTime();
+                pending.offer(future);
+                return;
+            }
+            activeCount++;
+            admittedCount++;
+            future.acquirePermit();
+        }
+        dispatch(future);
+    }
+
+    /**
+     * Releases the permit of a future that has run, or that is never going to run,
+     * handing it to the next waiting future.
+     */
+    void release() {
+        TaskFuture<?> next;
+        synchronized (this) {
+            next = activeCount <= maxConcurrency ? pollPending() : null;
+            if (next == null) {
+                activeCount--;
+                return;
+            }
+        }
+        dispatch(next);
+    }
+
+    /**
+     * Stops waiting for a permit, if the given future was still waiting.
+     */
+    synchronized void remove(TaskFuture<?> future) {
+        pending.remove(future);
+    }
+
+    /**
+     * Changes the priority of a future that may still be waiting for a permit.
+     *
+     * @return {@code true} if the future was waiting, and so it has been moved.
+     */
+    synchronized boolean reprioritize(TaskFuture<?> future, TaskPriority priority) {
+        if (pending.remove(future)) {
+            future.setPriority(priority);
+            pending.offer(future);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes the next future waiting for a permit, skipping the cancelled ones.
+     * Must be called holding the lock of this bulkhead.
+     */
+    private TaskFuture<?> pollPending() {
+        TaskFuture<?> next;
+        while ((next = pending.poll()) != null) {
+            if (!next.isDone()) {
+                // The permit being released, or a new one, goes to this future.
+                next.acquirePermit();
+                final long waitNanos = System.nanoTime() - next.queuedNanos;
+                admittedCount++;
+                queuedCount++;
+                totalWaitNanos += waitNanos;
+                if (waitNanos > maxWaitNanos) {
+                    maxWaitNanos = waitNanos;
+                }
+                return next;
+            }
+        }
+        return null;
+    }
+
+    private void dispatch(TaskFuture<?> future) {
+        try {
+            future.owner.executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            future.reject(e);
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "Bulkhead{key=" + key + ", " + getStats() + '}';
+    }
+
+    /**
+     * A snapshot of the statistics of a bulkhead.
+     */
+    public static final class Stats {
+        private final int activeCount;
+        private final int queueLength;
+        private final long admittedCount;
+        private final long queuedCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        Stats(int activeCount, int queueLength, long admittedCount, long queuedCount, long totalWaitNanos, long maxWaitNanos) {
+            this.activeCount = activeCount;
+            this.queueLength = queueLength;
+            this.admittedCount = admittedCount;
+            this.queuedCount = queuedCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /**
+         * Gets the number of tasks holding a permit.
+         */
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        /**
+         * Gets the number of tasks waiting for a permit.
+         */
+        public int getQueueLength() {
+            return queueLength;
+        }
+
+        /**
+         * Gets the number of tasks that have been given a permit.
+         */
+        public long getAdmittedCount() {
+            return admittedCount;
+        }
+
+        /**
+         * Gets the number of tasks that had to wait for a permit.
+         */
+        public long getQueuedCount() {
+            return queuedCount;
+        }
+
+        /**
+         * Gets the average time, in nanoseconds, waited by the tasks given a permit,
+         * including the ones that didn't wait at all.
+         */
+        public long getAverageWaitNanos() {
+            return admittedCount == 0 ? 0 : totalWaitNanos / admittedCount;
+        }
+
+        /**
+         * Gets the longest time, in nanoseconds, waited for a permit.
+         */
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Bulkhead.Stats{" +
+                    "active=" + activeCount +
+                    ", queueLength=" + queueLength +
+                    ", admitted=" + admittedCount +
+                    ", queued=" + queuedCount +
+                    ", averageWaitNanos=" + getAverageWaitNanos() +
+                    ", maxWaitNanos=" + maxWaitNanos +
+                    '}';
+        }
+    }
+}
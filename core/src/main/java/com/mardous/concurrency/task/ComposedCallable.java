@@ -0,0 +1,325 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncFunction;
+import com.mardous.concurrency.ResultCache;
+import com.mardous.concurrency.internal.UnacceptableResultException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link AsyncCallable} behind the builders created by the composition
+ * operators of {@link ResultTaskBuilder}.
+ *
+ * <p>Every stage runs on worker threads, without going through the main thread:
+ * only the callbacks of the task that runs the whole pipeline are delivered, and those
+ * are forwarded to the last {@link AsyncFunction} of the pipeline, if any. All the stages
+ * share the same task, so cancelling it cancels the whole pipeline, and the stages running at
+ * that moment are told through {@link TaskConnection#onCancelRequested(boolean)}. The {@link AsyncCallable}s
+ * of the stages are bound to that task only on the thread running them, through
+ * {@link TaskConnection#callFor(Task, java.util.concurrent.Callable)}, so the same builder can
+ * be a stage of several pipelines running at once.
+ *
+ * <p>Only the filters and the cache of a stage are honoured: its retries, deadline, priority,
+ * single-flight key, switch slot and concurrency limit belong to standalone tasks, and the
+ * pipeline only has the ones of its own task.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+abstract class ComposedCallable<R> extends AsyncCallable<R> {
+
+    /**
+     * How long a stage waits for a branch before trying to run the
+     * pending branches by itself, in case the executor is saturated.
+     */
+    private static final long STARVATION_CHECK_MILLIS = 10;
+
+    @Nullable
+    private final AsyncFunction<?, R> callbacks;
+    // The same callbacks, seen as a connection so they can be bound to the task.
+    @Nullable
+    private final TaskConnection callbacksConnection;
+    // The stages running right now, so they can be told when their task is cancelled.
+    private final Set<RunningStage> runningStages = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    ComposedCallable(@Nullable AsyncFunction<?, R> callbacks) {
+        this.callbacks = callbacks;
+        this.callbacksConnection = callbacks;
+    }
+
+    /**
+     * Computes the result of the pipeline. Called on a worker thread.
+     *
+     * @param owner The task running the pipeline.
+     */
+    @WorkerThread
+    abstract R compute(@NonNull Task owner) throws Exception;
+
+    @Override
+    public final R call() throws Exception {
+        // The pipeline may itself be running for another task, i.e. a single flight.
+        Task owner = ((TaskConnection) this).getBoundTask();
+        if (owner == null) {
+            throw new CancellationException("The pipeline is not attached to a task.");
+        }
+        if (callbacksConnection == null) {
+            return compute(owner);
+        }
+        callbacksConnection.mTask = ((TaskConnection) this).mTask;
+        return callbacksConnection.callFor(owner, () -> compute(owner));
+    }
+
+    /**
+     * Runs the given stage on the calling thread, as part of the given task. Only the
+     * filters and the cache of the stage are honoured.
+     *
+     * @throws UnacceptableResultException if the result has not passed the filters of the stage.
+     */
+    @WorkerThread
+    final <T> T runStage(@NonNull ResultTaskBuilder<T> stage, @NonNull Task owner) throws Exception {
+        if (owner.isCancelled()) {
+            throw new CancellationException();
+        }
+        if (stage.cacheKey != null) {
+            ResultCache.Entry entry = stage.cache.lookup(stage.cacheKey);
+            if (entry != null) {
+                return entry.getValue();
+            }
+        }
+        final RunningStage running = new RunningStage(owner, stage.action);
+        runningStages.add(running);
+        T result;
+        try {
+            result = running.connection.callFor(owner, stage.action);
+        } finally {
+            runningStages.remove(running);
+        }
+        if (!stage.resultFilter.acceptable(result)) {
+            throw new UnacceptableResultException(result);
+        }
+        if (stage.cacheKey != null) {
+            stage.cache.put(stage.cacheKey, result);
+        }
+        return result;
+    }
+
+    /**
+     * Runs every stage, in parallel, as part of the given task and returns
+     * their results in the same order. If one of them fails, the others are
+     * cancelled and its error is thrown.
+     */
+    @WorkerThread
+    final <T> List<T> runAll(@NonNull List<? extends ResultTaskBuilder<? extends T>> stages,
+                             @NonNull Task owner) throws Exception {
+        List<Branch<T>> branches = fork(stages, owner, null, true);
+        List<T> results = new ArrayList<>(branches.size());
+        try {
+            for (Branch<T> branch : branches) {
+                // Runs the branch here if the executor has not picked it up yet.
+                branch.run();
+                results.add(branch.join());
+            }
+        } catch (Exception e) {
+            cancelAll(branches);
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Runs every stage, in parallel, as part of the given task and returns the
+     * result of the first one that completes without errors, cancelling the others.
+     * If all of them fail, the last error is thrown.
+     */
+    @WorkerThread
+    final <T> T runAny(@NonNull List<? extends ResultTaskBuilder<? extends T>> stages,
+                       @NonNull Task owner) throws Exception {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("At least one stage is required.");
+        }
+        LinkedBlockingQueue<Branch<T>> completed = new LinkedBlockingQueue<>();
+        List<Branch<T>> branches = fork(stages, owner, completed, false);
+        try {
+            Exception lastError = null;
+            int remaining = branches.size();
+            while (remaining > 0) {
+                Branch<T> branch = completed.poll(STARVATION_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                if (branch == null) {
+                    runPending(branches);
+                    continue;
+                }
+                remaining--;
+                try {
+                    T result = branch.join();
+                    cancelAll(branches);
+                    return result;
+                } catch (Exception e) {
+                    lastError = e;
+                }
+            }
+            throw lastError;
+        } catch (InterruptedException e) {
+            cancelAll(branches);
+            throw e;
+        }
+    }
+
+    private <T> List<Branch<T>> fork(List<? extends ResultTaskBuilder<? extends T>> stages, Task owner,
+                                     @Nullable LinkedBlockingQueue<Branch<T>> completed, boolean keepFirst) {
+        List<Branch<T>> branches = new ArrayList<>(stages.size());
+        for (int i = 0; i < stages.size(); i++) {
+            final ResultTaskBuilder<? extends T> stage = stages.get(i);
+            Branch<T> branch = new Branch<>(() -> runStage(stage, owner), completed);
+            branches.add(branch);
+            // When kept, the first branch is meant to run on the calling thread.
+            if (i > 0 || !keepFirst) {
+                stage.getExecutor().execute(branch);
+            }
+        }
+        return branches;
+    }
+
+    private static <T> void runPending(List<Branch<T>> branches) {
+        for (Branch<T> branch : branches) {
+            if (!branch.isDone()) {
+                // No-op if the branch is already running somewhere else.
+                branch.run();
+            }
+        }
+    }
+
+    private static <T> void cancelAll(List<Branch<T>> branches) {
+        for (Branch<T> branch : branches) {
+            branch.cancel(true);
+        }
+    }
+
+    @Override
+    public void onPreExecute() {
+        if (callbacksConnection != null) {
+            callbacksConnection.mTask = ((TaskConnection) this).mTask;
+            callbacksConnection.onPreExecute();
+        }
+    }
+
+    @Override
+    public void onSuccess(R result) {
+        if (callbacks != null) {
+            callbacks.onSuccess(result);
+        }
+    }
+
+    @Override
+    public void onBadResult(R result) {
+        if (callbacks != null) {
+            callbacks.onBadResult(result);
+        }
+    }
+
+    @Override
+    protected void onError(Exception e) {
+        if (callbacksConnection != null) {
+            callbacksConnection.onError(e);
+        }
+    }
+
+    @Override
+    protected void onCancelled() {
+        if (callbacksConnection != null) {
+            callbacksConnection.onCancelled();
+        }
+    }
+
+    @Override
+    protected void onTimeout() {
+        if (callbacksConnection != null) {
+            callbacksConnection.onTimeout();
+        }
+    }
+
+    @Override
+    protected void onRetry(int attempt, Exception e, long delayMillis) {
+        if (callbacksConnection != null) {
+            callbacksConnection.onRetry(attempt, e, delayMillis);
+        }
+    }
+
+    @Override
+    protected void onCancelRequested(boolean mayInterruptIfRunning) {
+        for (RunningStage stage : runningStages) {
+            // The pipeline may be running for other tasks too.
+            if (stage.owner.isCancelled()) {
+                stage.connection.onCancelRequested(mayInterruptIfRunning);
+            }
+        }
+        if (callbacksConnection != null) {
+            callbacksConnection.onCancelRequested(mayInterruptIfRunning);
+        }
+    }
+
+    @Override
+    protected void onFinished() {
+        if (callbacksConnection != null) {
+            callbacksConnection.onFinished();
+            callbacksConnection.mTask = null;
+        }
+    }
+
+    /**
+     * A stage running for a task.
+     */
+    private static final class RunningStage {
+        final Task owner;
+        final TaskConnection connection;
+
+        RunningStage(Task owner, TaskConnection connection) {
+            this.owner = owner;
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * A stage running in parallel with others.
+     */
+    private static final class Branch<T> extends FutureTask<T> {
+        @Nullable
+        private final LinkedBlockingQueue<Branch<T>> completed;
+
+        Branch(Callable<T> stage, @Nullable LinkedBlockingQueue<Branch<T>> completed) {
+            super(stage);
+            this.completed = completed;
+        }
+
+        @Override
+        protected void done() {
+            if (completed != null) {
+                completed.offer(this);
+            }
+        }
+
+        T join() throws Exception {
+            try {
+                return get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
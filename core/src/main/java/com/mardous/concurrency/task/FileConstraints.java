@@ -0,0 +1,164 @@
+package com.mardous.concurrency.task;
+
+import com.mardous.concurrency.internal.Predicate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * The single {@link Predicate} behind all the file filters of a {@link FileResultTaskBuilder}.
+ *
+ * <p>Instead of testing every filter on its own, each one asking the file system again, all the
+ * constraints are tested against one snapshot of the attributes of the file, read with a single
+ * {@code stat} through {@link Files#readAttributes(Path, Class, java.nio.file.LinkOption...)}.
+ * Where {@code java.nio.file} is not available (Android before API 26), every attribute is read
+ * with {@link File} only when a constraint needs it, and at most once.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+final class FileConstraints implements Predicate<File> {
+
+    private static final boolean NIO_AVAILABLE = isNioAvailable();
+
+    boolean mustBeFile;
+    boolean mustBeDirectory;
+    boolean mustBeEmptyDirectory;
+    long minimumLength = Long.MIN_VALUE;
+    long maximumLength = Long.MAX_VALUE;
+
+    @Override
+    public boolean test(File file) throws NullPointerException {
+        Attributes attributes = NIO_AVAILABLE ? NioAttributes.read(file) : new IoAttributes(file);
+        if (mustBeFile && !attributes.isFile()) {
+            return false;
+        }
+        if ((mustBeDirectory || mustBeEmptyDirectory) && !attributes.isDirectory()) {
+            return false;
+        }
+        if (minimumLength != Long.MIN_VALUE || maximumLength != Long.MAX_VALUE) {
+            long length = attributes.length();
+            if (length < minimumLength || length > maximumLength) {
+                return false;
+            }
+        }
+        return !mustBeEmptyDirectory || attributes.isEmptyDirectory();
+    }
+
+    private static boolean isNioAvailable() {
+        try {
+            Class.forName("java.nio.file.Files");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private interface Attributes {
+        boolean isFile();
+
+        boolean isDirectory();
+
+        long length();
+
+        boolean isEmptyDirectory();
+    }
+
+    /**
+     * The attributes read with a single {@code stat}. Files that cannot be read are seen
+     * as missing, which is what {@link File} reports as well.
+     */
+    private static final class NioAttributes implements Attributes {
+        private final Path path;
+        private final BasicFileAttributes attributes;
+
+        private NioAttributes(Path path, BasicFileAttributes attributes) {
+            this.path = path;
+            this.attributes = attributes;
+        }
+
+        static Attributes read(File file) {
+            Path path = file.toPath();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException | SecurityException e) {
+                attributes = null;
+            }
+            return new NioAttributes(path, attributes);
+        }
+
+        @Override
+        public boolean isFile() {
+            return attributes != null && attributes.isRegularFile();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return attributes != null && attributes.isDirectory();
+        }
+
+        @Override
+        public long length() {
+            return attributes != null ? attributes.size() : 0;
+        }
+
+        @Override
+        public boolean isEmptyDirectory() {
+            // Stops at the first entry, instead of listing the whole directory.
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+                return !entries.iterator().hasNext();
+            } catch (IOException | SecurityException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The attributes read with {@link File}, lazily and at most once.
+     */
+    private static final class IoAttributes implements Attributes {
+        private final File file;
+        private Boolean isFile;
+        private Boolean isDirectory;
+        private Long length;
+
+        IoAttributes(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public boolean isFile() {
+            if (isFile == null) {
+                isFile = file.isFile();
+            }
+            return isFile;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            if (isDirectory == null) {
+                // A regular file cannot be a directory, no need to ask again.
+                isDirectory = !Boolean.TRUE.equals(isFile) && file.isDirectory();
+            }
+            return isDirectory;
+        }
+
+        @Override
+        public long length() {
+            if (length == null) {
+                length = file.length();
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isEmptyDirectory() {
+            String[] files = file.list();
+            return files != null && files.length == 0;
+        }
+    }
+}
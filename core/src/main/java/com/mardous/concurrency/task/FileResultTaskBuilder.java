@@ -0,0 +1,62 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncCallable;
+
+import java.io.File;
+
+/**
+ * A {@link ResultTaskBuilder} for tasks producing a {@link File}.
+ *
+ * <p>All the file filters of this builder are tested together, against a single snapshot
+ * of the attributes of the resulting file, so adding more of them doesn't cost more calls
+ * to the file system.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class FileResultTaskBuilder extends ResultTaskBuilder<File> {
+
+    private FileConstraints constraints;
+
+    public FileResultTaskBuilder(@NonNull AsyncCallable<File> action) {
+        super(action);
+    }
+
+    public FileResultTaskBuilder mustBeFile(boolean mustBeFile) {
+        constraints().mustBeFile |= mustBeFile;
+        return this;
+    }
+
+    public FileResultTaskBuilder mustBeDirectory(boolean mustBeDirectory) {
+        constraints().mustBeDirectory |= mustBeDirectory;
+        return this;
+    }
+
+    public FileResultTaskBuilder mustBeEmptyDirectory(boolean mustBeEmpty) {
+        constraints().mustBeEmptyDirectory |= mustBeEmpty;
+        return this;
+    }
+
+    public FileResultTaskBuilder acceptsMinimumLength(long minimumLength) {
+        FileConstraints constraints = constraints();
+        constraints.minimumLength = Math.max(constraints.minimumLength, minimumLength);
+        return this;
+    }
+
+    public FileResultTaskBuilder acceptsMaximumLength(long maximumLength) {
+        FileConstraints constraints = constraints();
+        constraints.maximumLength = Math.min(constraints.maximumLength, maximumLength);
+        return this;
+    }
+
+    /**
+     * Gets the constraints of this builder, adding them to its filter the first time.
+     */
+    private FileConstraints constraints() {
+        if (constraints == null) {
+            constraints = new FileConstraints();
+            addFilter(constraints);
+        }
+        return constraints;
+    }
+}
@@ -0,0 +1,149 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.OnLifecycleEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Holds the completion callbacks of the tasks attached to a {@link Lifecycle} while it's
+ * stopped, along with the work deferred until it's started again. Everything is released
+ * in a single batch on {@link Lifecycle.Event#ON_START ON_START}.
+ *
+ * <p>There is one buffer per lifecycle, observing it on behalf of all of its tasks.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+final class LifecycleBuffer implements LifecycleObserver {
+
+    private static final Map<Lifecycle, LifecycleBuffer> BUFFERS = new WeakHashMap<>();
+
+    // Only touched on the main thread.
+    private final List<Task> held = new ArrayList<>();
+    private boolean destroyed;
+    // Guarded by this buffer.
+    private final List<Runnable> deferred = new ArrayList<>();
+    private boolean started;
+
+    private LifecycleBuffer() {
+    }
+
+    /**
+     * Gets the buffer of the given lifecycle, creating it the first time.
+     *
+     * @return The buffer, or {@code null} if the lifecycle has already been destroyed.
+     */
+    @Nullable
+    @MainThread
+    static LifecycleBuffer of(@NonNull Lifecycle lifecycle) {
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            return null;
+        }
+        synchronized (BUFFERS) {
+            LifecycleBuffer buffer = BUFFERS.get(lifecycle);
+            if (buffer == null) {
+                buffer = new LifecycleBuffer();
+                BUFFERS.put(lifecycle, buffer);
+                // Catches up with the current state right away.
+                lifecycle.addObserver(buffer);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * Holds the completion callbacks of the given task if the lifecycle is stopped.
+     * Once the lifecycle has been destroyed, the callbacks are dropped instead.
+     *
+     * @return {@code false} if the callbacks must be delivered right away.
+     */
+    @MainThread
+    boolean hold(Task task) {
+        synchronized (this) {
+            if (started) {
+                return false;
+            }
+        }
+        if (destroyed) {
+            // I.e. the ones of the tasks cancelled because of the destruction.
+            task.discardCompletion();
+            return true;
+        }
+        if (task.keepLatestResult) {
+            for (int i = 0; i < held.size(); i++) {
+                Task other = held.get(i);
+                if (other.keepLatestResult && other.getName().equals(task.getName())) {
+                    held.remove(i);
+                    other.discardCompletion();
+                    break;
+                }
+            }
+        }
+        held.add(task);
+        return true;
+    }
+
+    /**
+     * Defers the given submission until the lifecycle is started, if it's stopped.
+     *
+     * @return {@code false} if the work must be submitted right away.
+     */
+    synchronized boolean defer(Runnable submission) {
+        if (started) {
+            return false;
+        }
+        deferred.add(submission);
+        return true;
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_START)
+    void onStart() {
+        List<Runnable> submissions;
+        synchronized (this) {
+            started = true;
+            submissions = new ArrayList<>(deferred);
+            deferred.clear();
+        }
+        if (!held.isEmpty()) {
+            List<Task> tasks = new ArrayList<>(held);
+            held.clear();
+            for (Task task : tasks) {
+                task.flushCompletion();
+            }
+        }
+        for (Runnable submission : submissions) {
+            submission.run();
+        }
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
+    void onStop() {
+        synchronized (this) {
+            started = false;
+        }
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+    void onDestroy() {
+        synchronized (this) {
+            started = false;
+            deferred.clear();
+        }
+        destroyed = true;
+        // Nobody is going to see these results.
+        for (Task task : held) {
+            task.discardCompletion();
+        }
+        held.clear();
+        synchronized (BUFFERS) {
+            BUFFERS.values().remove(this);
+        }
+    }
+}
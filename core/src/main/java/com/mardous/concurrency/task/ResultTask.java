@@ -0,0 +1,287 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.ResultCache;
+import com.mardous.concurrency.ResultFilter;
+import com.mardous.concurrency.spi.Platform;
+import com.mardous.concurrency.spi.WorkerThreadController;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A task that can execute an action and expect a
+ * result from such action.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class ResultTask<Result> extends Task {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ResultTask, ResultFuture> RESULT_FUTURE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(ResultTask.class, ResultFuture.class, "resultFuture");
+
+    // Values of the final outcome that aren't a result.
+    private static final Object PENDING = new Object();
+    private static final Object CANCELLED = new Object();
+
+    private final AsyncCallable<Result> action;
+    private final ResultFilter<Result> resultFilter;
+    private final Object cacheKey;
+    private final ResultCache cache;
+    private final Object singleFlightKey;
+    // Null unless the task was given a switch slot.
+    @Nullable
+    private final SwitchSlot.Entry switchEntry;
+
+    private volatile SingleFlight<Result> flight;
+
+    // The future of the current attempt.
+    private volatile TaskFuture<Result> future;
+    // The result, a Failure or CANCELLED once the task has terminated.
+    private volatile Object finalOutcome = PENDING;
+    // Created by the first call to getResult().
+    private volatile ResultFuture<Result> resultFuture;
+
+    ResultTask(ResultTaskBuilder<Result> taskBuilder) {
+        super(taskBuilder, taskBuilder.action);
+        this.action = taskBuilder.action;
+        this.resultFilter = taskBuilder.resultFilter;
+        this.cacheKey = taskBuilder.cacheKey;
+        this.cache = taskBuilder.cache;
+        this.singleFlightKey = taskBuilder.singleFlightKey;
+        this.switchEntry = taskBuilder.switchKey != null ? new SwitchSlot.Entry(taskBuilder.switchKey,
+                taskBuilder.debounceNanos, taskBuilder.throttleNanos) : null;
+    }
+
+    /**
+     * Waits if necessary for the task to complete, and then retrieves its result.
+     * Retries and shared {@link ResultTaskBuilder#singleFlight(Object) single-flight}
+     * computations are waited for as well: only the final outcome of the task is returned.
+     *
+     * @return the computed result, or {@code null} if the task hasn't been executed
+     * @throws ExecutionException   if the computation threw an
+     *                              exception
+     * @throws InterruptedException if the current thread was interrupted
+     *                              while waiting
+     */
+    @Nullable
+    @MainThread
+    public Result getResult() throws ExecutionException, InterruptedException {
+        if (getState() == State.IDLE) {
+            return null;
+        }
+        return getResultFuture().get();
+    }
+
+    /**
+     * Waits if necessary for at most the given time for the task to complete,
+     * and then retrieves its result, if available.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the time unit of the timeout argument
+     * @return the computed result, or {@code null} if the task hasn't been executed
+     * @throws ExecutionException   if the computation threw an
+     * @throws InterruptedException if the current thread was interrupted
+     *                              while waiting
+     * @throws TimeoutException     if the wait timed out
+     */
+    @Nullable
+    @MainThread
+    public Result getResult(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (getState() == State.IDLE) {
+            return null;
+        }
+        return getResultFuture().get(timeout, unit);
+    }
+
+    /**
+     * Gets the future completed with the final outcome of this task, creating it if needed.
+     */
+    private ResultFuture<Result> getResultFuture() {
+        ResultFuture<Result> resultFuture = this.resultFuture;
+        if (resultFuture == null) {
+            ResultFuture<Result> created = new ResultFuture<>();
+            resultFuture = RESULT_FUTURE_UPDATER.compareAndSet(this, null, created) ? created : this.resultFuture;
+        }
+        final Object outcome = finalOutcome;
+        if (outcome != PENDING) {
+            // The task terminated before the future was published.
+            resultFuture.complete(outcome);
+        }
+        return resultFuture;
+    }
+
+    @Override
+    void onTerminated(State state, @Nullable Object result, @Nullable Exception error) {
+        final Object outcome = state == State.CANCELLED ? CANCELLED : error != null ? new Failure(error) : result;
+        finalOutcome = outcome;
+        final ResultFuture<Result> resultFuture = this.resultFuture;
+        if (resultFuture != null) {
+            resultFuture.complete(outcome);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        SingleFlight<Result> flight = this.flight;
+        if (flight != null) {
+            // Leaves the shared computation without cancelling it for the other subscribers.
+            if (setState(State.CANCELLED)) {
+                flight.unsubscribe(this, mayInterruptIfRunning);
+                return true;
+            }
+            return isCancelled();
+        }
+        return doCancellation(future, mayInterruptIfRunning);
+    }
+
+    @Override
+    void onPriorityChanged(TaskPriority priority) {
+        SingleFlight<Result> flight = this.flight;
+        if (flight != null) {
+            flight.raisePriority(priority);
+        } else {
+            reprioritize(future, priority);
+        }
+    }
+
+    @Override
+    void onShutdown() {
+        if (switchEntry != null) {
+            switchEntry.release(this);
+        }
+    }
+
+    @NonNull
+    @Override
+    public ResultTask<Result> execute() {
+        setState(State.RUNNING);
+
+        if (switchEntry != null) {
+            SwitchSlot.submit(switchEntry, this, this::start);
+            return this;
+        }
+        start();
+        return this;
+    }
+
+    private void start() {
+        if (cacheKey != null) {
+            ResultCache.Entry entry = cache.lookup(cacheKey);
+            if (entry != null) {
+                finishWith(entry.getValue(), true);
+                return;
+            }
+        }
+
+        if (singleFlightKey != null) {
+            SingleFlight<Result> flight = SingleFlight.subscribe(singleFlightKey, action, this);
+            this.flight = flight;
+            // A cancellation may have happened before the flight was published.
+            if (isCancelled()) {
+                flight.unsubscribe(this, true);
+            }
+            return;
+        }
+
+        submitAttempt();
+    }
+
+    private void submitAttempt() {
+        future = new TaskFuture<>(() -> {
+            boolean retrying = false;
+            try {
+                beginAttempt();
+                WorkerThreadController controller = Platform.getWorkerThreadController();
+                controller.onWorkerStart(priority);
+                Result result = action.call();
+                controller.onWorkerFinish();
+                return postResult(result);
+            } catch (Exception e) {
+                retrying = scheduleRetry(e, this::submitAttempt);
+                if (!retrying) {
+                    postError(e);
+                }
+                return null;
+            } finally {
+                // No-op if the outcome has already been posted or the task was cancelled.
+                if (!retrying) {
+                    setState(State.FINISHED);
+                }
+            }
+        }, this);
+
+        // A cancellation may have happened before the future was published.
+        if (!isCancelled()) {
+            submit(future);
+        }
+    }
+
+    @WorkerThread
+    Result postResult(Result result) {
+        if (!isCancelled()) {
+            if (resultFilter.acceptable(result)) {
+                if (cacheKey != null) {
+                    cache.put(cacheKey, result);
+                }
+                finishWith(result, true);
+            } else {
+                finishWith(result, false);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void deliverResult(Object result, boolean acceptable) {
+        if (acceptable) {
+            action.onSuccess((Result) result);
+        } else {
+            action.onBadResult((Result) result);
+        }
+    }
+
+    /**
+     * The error a task finished with.
+     */
+    private static final class Failure {
+        final Exception error;
+
+        Failure(Exception error) {
+            this.error = error;
+        }
+    }
+
+    /**
+     * The future returned to the callers of {@link #getResult()}. It's never run: it's only
+     * completed with the final outcome of the task, whatever the attempts it took.
+     */
+    private static final class ResultFuture<V> extends FutureTask<V> {
+        private static final Runnable NEVER_RUN = () -> {
+        };
+
+        ResultFuture() {
+            super(NEVER_RUN, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object outcome) {
+            if (outcome == CANCELLED) {
+                cancel(false);
+            } else if (outcome instanceof Failure) {
+                setException(((Failure) outcome).error);
+            } else {
+                set((V) outcome);
+            }
+        }
+    }
+}
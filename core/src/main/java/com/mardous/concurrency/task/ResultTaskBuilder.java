@@ -0,0 +1,349 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncFunction;
+import com.mardous.concurrency.ResultCache;
+import com.mardous.concurrency.ResultFilter;
+import com.mardous.concurrency.Utils;
+import com.mardous.concurrency.internal.BiFunction;
+import com.mardous.concurrency.internal.Function;
+import com.mardous.concurrency.internal.NamespacedKey;
+import com.mardous.concurrency.internal.Predicate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link TaskBuilder builder} used to create {@link ResultTask result tasks}.
+ *
+ * <p>Builders can be composed with {@link #map(Function) map}, {@link #flatMap(Function) flatMap},
+ * {@link #zip(ResultTaskBuilder, BiFunction) zip}, {@link #allOf(List) allOf} and
+ * {@link #anyOf(List) anyOf}. The builders given to them become stages of a single task: each
+ * stage runs its {@link AsyncCallable} on the {@link #getExecutor() executor} of its builder,
+ * testing its result against its filters and using its {@link #cacheKey(Object) cache}, while
+ * the rest of its settings (retries, deadline, priority, single-flight, switch slot and
+ * concurrency limit) are ignored. Those are taken from the composed builder instead, which
+ * inherits them from the builder {@code map}, {@code flatMap} and {@code zip} are called on.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class ResultTaskBuilder<Result> extends TaskBuilder<ResultTask<Result>> {
+
+    final AsyncCallable<Result> action;
+    final ResultFilter<Result> resultFilter = new ResultFilter<>();
+
+    Object cacheKey;
+    ResultCache cache;
+
+    Object singleFlightKey;
+
+    Object switchKey;
+    long debounceNanos;
+    long throttleNanos;
+
+    public ResultTaskBuilder(@NonNull AsyncCallable<Result> action) {
+        this.action = action;
+    }
+
+    /**
+     * Adds a {@link Predicate predicate} that will be used to
+     * test the result of this task.
+     * <p>All predicates are added to a {@link ResultFilter filter},
+     * so when the task finishes its execution, and there is a result,
+     * the filter will proceed to iterate through all predicates testing
+     * then on the result.
+     * <p>If a test is not passed, that result is declared as unacceptable,
+     * and therefore, the {@link AsyncCallable#onBadResult(Object)} method
+     * is called immediately.
+     *
+     * @param predicate The {@link Predicate predicate} that will be used
+     *                  to test the result of this task.
+     * @return This same builder.
+     */
+    public ResultTaskBuilder<Result> addFilter(Predicate<Result> predicate) {
+        this.resultFilter.add(predicate);
+        return this;
+    }
+
+    public ResultTaskBuilder<Result> notAccepts(Result not) {
+        return addFilter(result -> !Utils.equals(result, not));
+    }
+
+    public ResultTaskBuilder<Result> acceptsNull(boolean acceptsNull) {
+        return addFilter(result -> acceptsNull || result != null);
+    }
+
+    /**
+     * Caches the result of this task in the {@link ResultCache#getDefault() default} cache.
+     *
+     * <p>The key is qualified by the class of the {@link AsyncCallable} of this builder, so
+     * the results of different computations never mix, even when they are given equal keys.
+     *
+     * @param key The key identifying the result, i.e. the input of the computation.
+     * @return This same builder.
+     * @see #cacheKey(Object, ResultCache)
+     */
+    public ResultTaskBuilder<Result> cacheKey(@NonNull Object key) {
+        Utils.assertNonNull(key, "Key");
+        return cacheKey(new NamespacedKey(namespace(), key), ResultCache.getDefault());
+    }
+
+    /**
+     * Caches the result of this task in the given {@link ResultCache cache}.
+     *
+     * <p>When the cache holds a result for the given key, the task does not run
+     * its {@link AsyncCallable} at all: the cached result is delivered to
+     * {@link AsyncCallable#onSuccess(Object)} without using a worker thread.
+     * Otherwise, the result is stored once it has passed the filters of this builder.
+     *
+     * <p>The key is used as is, so tasks sharing the given cache must not use equal keys
+     * for different computations.
+     *
+     * @param key   The key identifying the result, i.e. the input of the computation.
+     * @param cache The cache to use.
+     * @return This same builder.
+     */
+    public ResultTaskBuilder<Result> cacheKey(@NonNull Object key, @NonNull ResultCache cache) {
+        Utils.assertNonNull(key, "Key");
+        Utils.assertNonNull(cache, "Cache");
+        this.cacheKey = key;
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Deduplicates the work of identical tasks running at the same time.
+     *
+     * <p>While a task created with a given key is in flight, tasks executed with the same key
+     * don't run their own {@link AsyncCallable}: they wait for the computation already in flight,
+     * and then post its result to their own callbacks, after testing it against their own filters.
+     * Only tasks running the same class of {@link AsyncCallable} share their computations.
+     *
+     * <p>Cancelling one of these tasks only detaches it from the computation, which is
+     * cancelled once there are no tasks left waiting for it.
+     *
+     * @param key The key identifying the computation, i.e. the requested resource.
+     * @return This same builder.
+     */
+    public ResultTaskBuilder<Result> singleFlight(@NonNull Object key) {
+        Utils.assertNonNull(key, "Key");
+        // Like cache keys, flights are only shared by the same computation.
+        this.singleFlightKey = new NamespacedKey(namespace(), key);
+        return this;
+    }
+
+    /**
+     * Makes the task the only one that matters in the slot identified by the given key:
+     * the latest task executed in a slot wins.
+     *
+     * <p>Executing a task in a slot cancels the previous task of that slot, interrupting it if
+     * it's running, and drops its callbacks that haven't been delivered yet, even if it had
+     * already finished. This way only the result of the latest task reaches the UI, i.e.
+     * when searching as the user types, or when a recycled view is bound again.
+     *
+     * <p>The task can also wait for a {@link #debounce(long, TimeUnit) debounce} or a
+     * {@link #throttle(long, TimeUnit) throttle} window before starting, so that the
+     * tasks superseded in the meantime never use a thread.
+     *
+     * @param key The key identifying the slot, i.e. the search box or the view being bound.
+     * @return This same builder.
+     */
+    public ResultTaskBuilder<Result> switchSlot(@NonNull Object key) {
+        Utils.assertNonNull(key, "Key");
+        this.switchKey = key;
+        return this;
+    }
+
+    /**
+     * Delays the start of the task until the given time has elapsed without another task
+     * being executed in the same {@link #switchSlot(Object) slot}. Only applies to tasks
+     * executed in a slot.
+     *
+     * <p>{@link AsyncCallable#onPreExecute()} is called right away, as usual. The waiting time
+     * counts towards the {@link #deadline(long, TimeUnit) deadline}, if there's one.
+     *
+     * @param delay The time to wait.
+     * @param unit  The unit of the time.
+     * @return This same builder.
+     */
+    public ResultTaskBuilder<Result> debounce(long delay, @NonNull TimeUnit unit) {
+        Utils.assertNonNull(unit, "TimeUnit");
+        if (delay < 0) {
+            throw new IllegalArgumentException("The delay can't be negative.");
+        }
+        this.debounceNanos = unit.toNanos(delay);
+        return this;
+    }
+
+    /**
+     * Starts at most one task of the same {@link #switchSlot(Object) slot} per window of
+     * the given duration. A task executed before the window of the previous start has
+     * elapsed waits until then, unless it's superseded in the meantime. Only applies to
+     * tasks executed in a slot.
+     *
+     * @param window The minimum time between two starts.
+     * @param unit   The unit of the time.
+     * @return This same builder.
+     */
+    public ResultTaskBuilder<Result> throttle(long window, @NonNull TimeUnit unit) {
+        Utils.assertNonNull(unit, "TimeUnit");
+        if (window < 0) {
+            throw new IllegalArgumentException("The window can't be negative.");
+        }
+        this.throttleNanos = unit.toNanos(window);
+        return this;
+    }
+
+    /**
+     * Creates a builder whose task runs this one and then transforms its result
+     * with the given function, on the same worker thread.
+     *
+     * <p>The callbacks of this builder's {@link AsyncCallable} are not called: only
+     * the task created from the returned builder posts its outcome to the main thread.
+     * The returned builder uses the same executor and lifecycle as this one.
+     *
+     * @param mapper The function to apply to the result of this task.
+     * @return A new builder producing the transformed result.
+     */
+    public <U> ResultTaskBuilder<U> map(@NonNull Function<? super Result, ? extends U> mapper) {
+        Utils.assertNonNull(mapper, "Mapper");
+        return compose(new ComposedCallable<U>(null) {
+            @Override
+            U compute(@NonNull Task owner) throws Exception {
+                return mapper.apply(runStage(ResultTaskBuilder.this, owner));
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #map(Function)}, but the callbacks of the given {@link AsyncFunction}
+     * receive the outcome of the task created from the returned builder. This is the way
+     * to end a pipeline.
+     *
+     * @param mapper The function to apply to the result of this task.
+     * @return A new builder producing the transformed result.
+     */
+    public <U> ResultTaskBuilder<U> map(@NonNull AsyncFunction<? super Result, U> mapper) {
+        Utils.assertNonNull(mapper, "Mapper");
+        return compose(new ComposedCallable<U>(mapper) {
+            @Override
+            U compute(@NonNull Task owner) throws Exception {
+                return mapper.apply(runStage(ResultTaskBuilder.this, owner));
+            }
+        });
+    }
+
+    /**
+     * Creates a builder whose task runs this one, and then the one built by the
+     * given function from its result, on the same worker thread.
+     *
+     * @param mapper The function that builds the next stage from the result of this task.
+     * @return A new builder producing the result of the next stage.
+     * @see #map(Function)
+     */
+    public <U> ResultTaskBuilder<U> flatMap(@NonNull Function<? super Result, ? extends ResultTaskBuilder<U>> mapper) {
+        Utils.assertNonNull(mapper, "Mapper");
+        return compose(new ComposedCallable<U>(null) {
+            @Override
+            U compute(@NonNull Task owner) throws Exception {
+                ResultTaskBuilder<U> next = mapper.apply(runStage(ResultTaskBuilder.this, owner));
+                Utils.assertNonNull(next, "The next stage");
+                return runStage(next, owner);
+            }
+        });
+    }
+
+    /**
+     * Creates a builder whose task runs this one and the given one in parallel,
+     * and then combines both results with the given function.
+     *
+     * <p>If any of them fails, the other one is cancelled.
+     *
+     * @param other  The task to run along with this one.
+     * @param zipper The function that combines both results.
+     * @return A new builder producing the combined result.
+     * @see #map(Function)
+     */
+    public <U, V> ResultTaskBuilder<V> zip(@NonNull ResultTaskBuilder<U> other,
+                                           @NonNull BiFunction<? super Result, ? super U, ? extends V> zipper) {
+        Utils.assertNonNull(other, "The other stage");
+        Utils.assertNonNull(zipper, "Zipper");
+        List<ResultTaskBuilder<?>> stages = new ArrayList<>(2);
+        stages.add(this);
+        stages.add(other);
+        return compose(new ComposedCallable<V>(null) {
+            @Override
+            @SuppressWarnings("unchecked")
+            V compute(@NonNull Task owner) throws Exception {
+                List<Object> results = runAll(stages, owner);
+                return zipper.apply((Result) results.get(0), (U) results.get(1));
+            }
+        });
+    }
+
+    /**
+     * Creates a builder whose task runs all the given ones in parallel, producing
+     * the list of their results in the same order.
+     *
+     * <p>If any of them fails, the others are cancelled.
+     *
+     * @param builders The tasks to run.
+     * @return A new builder producing the list of results.
+     */
+    public static <T> ResultTaskBuilder<List<T>> allOf(@NonNull List<? extends ResultTaskBuilder<? extends T>> builders) {
+        Utils.assertNonNull(builders, "Builders");
+        List<ResultTaskBuilder<? extends T>> stages = new ArrayList<>(builders);
+        return new ResultTaskBuilder<>(new ComposedCallable<List<T>>(null) {
+            @Override
+            List<T> compute(@NonNull Task owner) throws Exception {
+                return runAll(stages, owner);
+            }
+        });
+    }
+
+    /**
+     * Creates a builder whose task runs all the given ones in parallel, producing the
+     * result of the first one that completes without errors. The others are cancelled.
+     *
+     * <p>If all of them fail, the task fails with the error of the last one.
+     *
+     * @param builders The tasks to run.
+     * @return A new builder producing the first successful result.
+     */
+    public static <T> ResultTaskBuilder<T> anyOf(@NonNull List<? extends ResultTaskBuilder<? extends T>> builders) {
+        Utils.assertNonNull(builders, "Builders");
+        List<ResultTaskBuilder<? extends T>> stages = new ArrayList<>(builders);
+        return new ResultTaskBuilder<>(new ComposedCallable<T>(null) {
+            @Override
+            T compute(@NonNull Task owner) throws Exception {
+                return runAny(stages, owner);
+            }
+        });
+    }
+
+    private <U> ResultTaskBuilder<U> compose(ComposedCallable<U> callable) {
+        ResultTaskBuilder<U> builder = new ResultTaskBuilder<>(callable);
+        builder.inherit(this);
+        return builder;
+    }
+
+    /**
+     * Gets the namespace of the keys given to this builder. Composed callables are
+     * anonymous classes shared by computations of any type, so each one is its own namespace.
+     */
+    private Object namespace() {
+        return action instanceof ComposedCallable ? action : action.getClass();
+    }
+
+    @Override
+    public ResultTask<Result> create() {
+        return new ResultTask<Result>(this);
+    }
+
+    @Override
+    public ResultTask<Result> execute() {
+        return create().execute();
+    }
+}
@@ -0,0 +1,192 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.Utils;
+import com.mardous.concurrency.internal.Predicate;
+import com.mardous.concurrency.internal.TimingWheel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes how a {@link Task} retries its work after a failure.
+ *
+ * <p>Attempts are separated by an exponential backoff: the delay before the {@code n}-th
+ * retry is {@code initialDelay * multiplier^(n - 1)}, never longer than the maximum delay,
+ * and shortened by a random amount of up to {@code jitter} times its value, so that many
+ * tasks failing at the same time don't retry all at once.
+ *
+ * <p>Delays are waited on the {@link TimingWheel#getShared() shared timing wheel}, not on a
+ * worker thread: the worker is released as soon as an attempt fails, and the next attempt is
+ * submitted to the executor of the task once its delay has elapsed.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ * @see TaskBuilder#retry(RetryPolicy)
+ */
+public final class RetryPolicy {
+
+    private static final Random JITTER = new Random();
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final double multiplier;
+    private final long maxDelayMillis;
+    private final double jitter;
+    private final Predicate<Exception> retryOn;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialDelayMillis = builder.initialDelayMillis;
+        this.multiplier = builder.multiplier;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.jitter = builder.jitter;
+        this.retryOn = builder.retryOn;
+    }
+
+    /**
+     * Gets the maximum number of attempts, including the first one.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Checks whether a task should try again after the given attempt has failed.
+     *
+     * @param attempt The number of the failed attempt, starting at 1.
+     * @param e       The error of the failed attempt.
+     * @return {@code true} if the task should try again.
+     */
+    public boolean shouldRetry(int attempt, @NonNull Exception e) {
+        return attempt < maxAttempts && (retryOn == null || retryOn.test(e));
+    }
+
+    /**
+     * Gets the delay to wait after the given attempt has failed, with jitter applied.
+     *
+     * @param attempt The number of the failed attempt, starting at 1.
+     * @return the delay in milliseconds.
+     */
+    public long getDelayMillis(int attempt) {
+        double delay = initialDelayMillis * Math.pow(multiplier, attempt - 1);
+        delay = Math.min(delay, maxDelayMillis);
+        if (jitter > 0) {
+            delay -= delay * jitter * JITTER.nextDouble();
+        }
+        return Math.round(delay);
+    }
+
+    /**
+     * Runs the given action on the shared timing wheel after the given delay. The
+     * action is expected to just submit the next attempt to the executor of the task.
+     */
+    @NonNull
+    static TimingWheel.Timeout schedule(@NonNull Runnable action, long delayMillis) {
+        return TimingWheel.getShared().schedule(action, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates {@link RetryPolicy} instances.
+     *
+     * <p>By default, a policy makes up to 3 attempts, waiting 100 milliseconds before
+     * the first retry and doubling the delay on every subsequent one, up to 30 seconds,
+     * with a jitter of 50%. Every error is retried.
+     */
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private long initialDelayMillis = 100;
+        private double multiplier = 2;
+        private long maxDelayMillis = TimeUnit.SECONDS.toMillis(30);
+        private double jitter = 0.5;
+        private Predicate<Exception> retryOn;
+
+        /**
+         * Sets the maximum number of attempts, including the first one.
+         *
+         * @param maxAttempts The maximum number of attempts.
+         * @return this same builder instance.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("The maximum number of attempts must be greater than zero.");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the exponential backoff between attempts.
+         *
+         * @param initialDelay The delay before the first retry.
+         * @param multiplier   The factor applied to the delay on every subsequent retry.
+         * @param unit         The unit of the delay.
+         * @return this same builder instance.
+         */
+        public Builder backoff(long initialDelay, double multiplier, @NonNull TimeUnit unit) {
+            Utils.assertNonNull(unit, "TimeUnit");
+            if (initialDelay < 0) {
+                throw new IllegalArgumentException("The delay must not be negative.");
+            }
+            if (multiplier < 1) {
+                throw new IllegalArgumentException("The multiplier must be at least 1.");
+            }
+            this.initialDelayMillis = unit.toMillis(initialDelay);
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Sets the maximum delay between attempts.
+         *
+         * @param maxDelay The maximum delay.
+         * @param unit     The unit of the delay.
+         * @return this same builder instance.
+         */
+        public Builder maxDelay(long maxDelay, @NonNull TimeUnit unit) {
+            Utils.assertNonNull(unit, "TimeUnit");
+            if (maxDelay < 0) {
+                throw new IllegalArgumentException("The delay must not be negative.");
+            }
+            this.maxDelayMillis = unit.toMillis(maxDelay);
+            return this;
+        }
+
+        /**
+         * Sets the jitter, that is, the maximum fraction of every delay that is randomly
+         * removed from it. Use {@code 0} to disable it.
+         *
+         * @param jitter A value between 0 and 1.
+         * @return this same builder instance.
+         */
+        public Builder jitter(double jitter) {
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("The jitter must be between 0 and 1.");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets a {@link Predicate predicate} deciding which errors are worth retrying.
+         * Errors that don't pass the predicate are delivered right away.
+         *
+         * @param retryOn The predicate.
+         * @return this same builder instance.
+         */
+        public Builder retryOn(@NonNull Predicate<Exception> retryOn) {
+            Utils.assertNonNull(retryOn, "Predicate");
+            this.retryOn = retryOn;
+            return this;
+        }
+
+        /**
+         * Creates the policy.
+         *
+         * @return a new policy.
+         */
+        @NonNull
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
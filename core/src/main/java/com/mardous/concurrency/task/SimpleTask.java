@@ -0,0 +1,70 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncRunnable;
+import com.mardous.concurrency.spi.Platform;
+import com.mardous.concurrency.spi.WorkerThreadController;
+
+
+/**
+ * A task that simply executes an action without
+ * leaving a result.
+ *
+ * @author Christians Marínez Alvarado (mardous)
+ */
+public class SimpleTask extends Task {
+
+    private final AsyncRunnable runnable;
+    private volatile TaskFuture<?> future;
+
+    SimpleTask(TaskBuilder taskBuilder, AsyncRunnable runnable) {
+        super(taskBuilder, runnable);
+        this.runnable = runnable;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return doCancellation(future, mayInterruptIfRunning);
+    }
+
+    @Override
+    void onPriorityChanged(TaskPriority priority) {
+        reprioritize(future, priority);
+    }
+
+    @NonNull
+    @Override
+    public SimpleTask execute() {
+        setState(State.RUNNING);
+        submitAttempt();
+        return this;
+    }
+
+    private void submitAttempt() {
+        future = new TaskFuture<>(() -> {
+            boolean retrying = false;
+            try {
+                beginAttempt();
+                WorkerThreadController controller = Platform.getWorkerThreadController();
+                controller.onWorkerStart(priority);
+                runnable.run();
+                controller.onWorkerFinish();
+            } catch (Exception e) {
+                retrying = scheduleRetry(e, this::submitAttempt);
+                if (!retrying) {
+                    postError(e);
+                }
+            } finally {
+                // No-op if an error has already been posted or the task was cancelled.
+                if (!retrying) {
+                    setState(State.FINISHED);
+                }
+            }
+        }, this);
+
+        // A cancellation may have happened before the future was published.
+        if (!isCancelled()) {
+            submit(future);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.spi.Platform;
+import com.mardous.concurrency.spi.WorkerThreadController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The computation shared by the {@link ResultTask}s executed with the same
+ * {@link ResultTaskBuilder#singleFlight(Object) single-flight} key.
+ *
+ * <p>The first task executed with a key starts the computation, running its own
+ * {@link AsyncCallable}; tasks executed with the same key while the computation is
+ * in flight subscribe to it instead of doing the same work again. Once the computation
+ * completes, every subscriber posts the outcome to its own callbacks, after testing the
+ * result against its own filters.
+ *
+ * <p>A subscriber that is cancelled just leaves the flight; the computation itself
+ * is only cancelled when no subscribers remain.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+final class SingleFlight<R> extends Task {
+
+    private static final ConcurrentMap<Object, SingleFlight<?>> FLIGHTS = new ConcurrentHashMap<>();
+
+    private final Object key;
+    private final AsyncCallable<R> action;
+
+    // Guarded by "this".
+    private final List<ResultTask<R>> subscribers = new ArrayList<>(2);
+    private boolean closed;
+
+    private volatile TaskFuture<R> future;
+
+    private SingleFlight(Object key, AsyncCallable<R> action, ResultTask<R> leader) {
+        super(leader);
+        this.key = key;
+        this.action = action;
+    }
+
+    /**
+     * Subscribes the given task to the computation in flight for the given
+     * key, starting a new one if there is none.
+     *
+     * @param key        The single-flight key.
+     * @param action     The action that computes the result, if a new computation starts.
+     * @param subscriber The task that will deliver the result.
+     * @return the flight the task has subscribed to.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    static <R> SingleFlight<R> subscribe(@NonNull Object key, @NonNull AsyncCallable<R> action,
+                                         @NonNull ResultTask<R> subscriber) {
+        for (; ; ) {
+            SingleFlight<R> flight = (SingleFlight<R>) FLIGHTS.get(key);
+            if (flight == null) {
+                SingleFlight<R> created = new SingleFlight<>(key, action, subscriber);
+                flight = (SingleFlight<R>) FLIGHTS.putIfAbsent(key, created);
+                if (flight == null) {
+                    created.add(subscriber);
+                    created.execute();
+                    return created;
+                }
+            }
+            if (flight.add(subscriber)) {
+                return flight;
+            }
+            // The flight is completing, so it no longer accepts subscribers.
+            FLIGHTS.remove(key, flight);
+        }
+    }
+
+    private synchronized boolean add(ResultTask<R> subscriber) {
+        if (closed) {
+            return false;
+        }
+        subscribers.add(subscriber);
+        raisePriority(subscriber.priority);
+        return true;
+    }
+
+    /**
+     * Removes a subscriber from this flight, cancelling the computation
+     * if it was the last one.
+     */
+    void unsubscribe(@NonNull ResultTask<R> subscriber, boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (!subscribers.remove(subscriber) || !subscribers.isEmpty() || closed) {
+                return;
+            }
+            closed = true;
+        }
+        FLIGHTS.remove(key, this);
+        cancel(mayInterruptIfRunning);
+    }
+
+    /**
+     * Makes the computation run with, at least, the given priority.
+     */
+    synchronized void raisePriority(@NonNull TaskPriority priority) {
+        if (priority.compareTo(getPriority()) < 0) {
+            setPriority(priority);
+        }
+    }
+
+    @Override
+    void onPriorityChanged(TaskPriority priority) {
+        reprioritize(future, priority);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return doCancellation(future, mayInterruptIfRunning);
+    }
+
+    @NonNull
+    @Override
+    public SingleFlight<R> execute() {
+        setState(State.RUNNING);
+        submitAttempt();
+        return this;
+    }
+
+    private void submitAttempt() {
+        future = new TaskFuture<>(() -> {
+            boolean retrying = false;
+            try {
+                beginAttempt();
+                WorkerThreadController controller = Platform.getWorkerThreadController();
+                controller.onWorkerStart(priority);
+                // The action belongs to the leader, whose task must stay its own: while the
+                // action runs, it only sees the flight from this thread.
+                R result = ((TaskConnection) action).callFor(this, action);
+                controller.onWorkerFinish();
+                for (ResultTask<R> subscriber : close()) {
+                    subscriber.postResult(result);
+                }
+                return result;
+            } catch (Exception e) {
+                retrying = scheduleRetry(e, this::submitAttempt);
+                if (!retrying) {
+                    for (ResultTask<R> subscriber : close()) {
+                        subscriber.postError(e);
+                    }
+                }
+                return null;
+            } finally {
+                if (!retrying) {
+                    setState(State.FINISHED);
+                }
+            }
+        }, this);
+
+        // A cancellation may have happened before the future was published.
+        if (!isCancelled()) {
+            submit(future);
+        }
+    }
+
+    /**
+     * Stops accepting subscribers and returns the current ones.
+     */
+    @WorkerThread
+    private List<ResultTask<R>> close() {
+        List<ResultTask<R>> snapshot;
+        synchronized (this) {
+            closed = true;
+            snapshot = new ArrayList<>(subscribers);
+            subscribers.clear();
+        }
+        FLIGHTS.remove(key, this);
+        return snapshot;
+    }
+}
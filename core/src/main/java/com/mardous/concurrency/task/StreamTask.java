@@ -0,0 +1,212 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import com.mardous.concurrency.AsyncStreamCallable;
+import com.mardous.concurrency.spi.Platform;
+import com.mardous.concurrency.spi.WorkerThreadController;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A task that runs an {@link AsyncStreamCallable}, delivering its items
+ * on the main thread as they're produced.
+ *
+ * <p>Items wait in a buffer of {@link StreamTaskBuilder#bufferSize(int) bounded} size, and the
+ * main thread takes them in batches of up to {@link StreamTaskBuilder#batchSize(int)} items,
+ * one batch per dispatched callback, so a fast producer can't monopolize the main thread.
+ *
+ * <p>Stream tasks are not {@link TaskBuilder#retry(RetryPolicy) retried}, since the items
+ * emitted before a failure have already been delivered.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class StreamTask<T> extends Task {
+
+    private final AsyncStreamCallable<T> callable;
+    private final int bufferSize;
+    private final int batchSize;
+    private final BackpressurePolicy backpressurePolicy;
+
+    // Guarded by "buffer".
+    private final ArrayDeque<T> buffer;
+    private boolean deliveryScheduled;
+    private boolean producerDone;
+    private Exception failure;
+    private long droppedCount;
+
+    private final Runnable deliverBatch = this::deliverBatch;
+    private final AsyncStreamCallable.Emitter<T> emitter = new AsyncStreamCallable.Emitter<T>() {
+        @Override
+        public void emit(T item) throws InterruptedException {
+            StreamTask.this.emit(item);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return StreamTask.this.isCancelled();
+        }
+    };
+
+    private volatile TaskFuture<?> future;
+
+    StreamTask(StreamTaskBuilder<T> taskBuilder, AsyncStreamCallable<T> callable) {
+        super(taskBuilder, callable);
+        this.callable = callable;
+        this.bufferSize = taskBuilder.bufferSize;
+        this.batchSize = taskBuilder.batchSize;
+        this.backpressurePolicy = taskBuilder.backpressurePolicy;
+        this.buffer = new ArrayDeque<>(Math.min(bufferSize, 1024));
+    }
+
+    /**
+     * Gets the number of items dropped so far because the buffer was full.
+     *
+     * @see BackpressurePolicy
+     */
+    public long getDroppedCount() {
+        synchronized (buffer) {
+            return droppedCount;
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = doCancellation(future, mayInterruptIfRunning);
+        synchronized (buffer) {
+            // Releases the pending items, and the producer if it was waiting for room.
+            buffer.clear();
+            buffer.notifyAll();
+        }
+        return cancelled;
+    }
+
+    @Override
+    void onPriorityChanged(TaskPriority priority) {
+        reprioritize(future, priority);
+    }
+
+    @NonNull
+    @Override
+    public StreamTask<T> execute() {
+        setState(State.RUNNING);
+
+        future = new TaskFuture<>(() -> {
+            Exception error = null;
+            try {
+                beginAttempt();
+                WorkerThreadController controller = Platform.getWorkerThreadController();
+                controller.onWorkerStart(priority);
+                callable.produce(emitter);
+                controller.onWorkerFinish();
+            } catch (Exception e) {
+                error = e;
+            } finally {
+                synchronized (buffer) {
+                    producerDone = true;
+                    failure = error;
+                    scheduleDelivery();
+                }
+            }
+        }, this);
+
+        // A cancellation may have happened before the future was published.
+        if (!isCancelled()) {
+            submit(future);
+        }
+        return this;
+    }
+
+    @WorkerThread
+    private void emit(T item) throws InterruptedException {
+        synchronized (buffer) {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            if (buffer.size() >= bufferSize) {
+                switch (backpressurePolicy) {
+                    case SUSPEND:
+                        while (buffer.size() >= bufferSize) {
+                            buffer.wait();
+                            if (isCancelled()) {
+                                throw new CancellationException();
+                            }
+                        }
+                        break;
+                    case DROP_OLDEST:
+                        buffer.pollFirst();
+                        droppedCount++;
+                        break;
+                    case DROP_LATEST:
+                        droppedCount++;
+                        return;
+                }
+            }
+            buffer.addLast(item);
+            scheduleDelivery();
+        }
+    }
+
+    /**
+     * Posts a delivery to the main thread, unless there is one pending already.
+     * Must be called holding the lock of the buffer.
+     */
+    private void scheduleDelivery() {
+        if (!deliveryScheduled) {
+            deliveryScheduled = true;
+            post(deliverBatch);
+        }
+    }
+
+    /**
+     * Delivers the next batch of items, or completes the stream once the producer
+     * is done and every item has been delivered.
+     */
+    @MainThread
+    private void deliverBatch() {
+        List<T> batch;
+        boolean complete;
+        Exception error;
+        synchronized (buffer) {
+            if (isCancelled()) {
+                buffer.clear();
+                deliveryScheduled = false;
+                return;
+            }
+            int count = Math.min(batchSize, buffer.size());
+            batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batch.add(buffer.pollFirst());
+            }
+            if (count > 0 && backpressurePolicy == BackpressurePolicy.SUSPEND) {
+                buffer.notifyAll();
+            }
+            complete = producerDone && buffer.isEmpty();
+            error = failure;
+            // Keeps delivering, one batch per callback, while items remain.
+            deliveryScheduled = !buffer.isEmpty();
+            if (deliveryScheduled) {
+                post(deliverBatch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            callable.onNext(batch);
+        }
+        if (complete) {
+            if (error != null) {
+                postError(error);
+            } else {
+                finishWith(null, true);
+            }
+        }
+    }
+
+    @Override
+    void deliverResult(Object result, boolean acceptable) {
+        callable.onComplete();
+    }
+}
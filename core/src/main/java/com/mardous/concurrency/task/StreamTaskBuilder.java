@@ -0,0 +1,77 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncStreamCallable;
+import com.mardous.concurrency.Utils;
+
+/**
+ * The {@link TaskBuilder builder} used to create {@link StreamTask stream tasks}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class StreamTaskBuilder<T> extends TaskBuilder<StreamTask<T>> {
+
+    private final AsyncStreamCallable<T> callable;
+
+    int bufferSize = 256;
+    int batchSize = 64;
+    BackpressurePolicy backpressurePolicy = BackpressurePolicy.SUSPEND;
+
+    public StreamTaskBuilder(@NonNull AsyncStreamCallable<T> callable) {
+        Utils.assertNonNull(callable, "Callable");
+        this.callable = callable;
+    }
+
+    /**
+     * Sets the maximum number of items waiting to be delivered to the main thread.
+     * By default, it's 256.
+     *
+     * @param bufferSize The capacity of the buffer.
+     * @return This same builder.
+     */
+    public StreamTaskBuilder<T> bufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("The buffer size must be greater than zero.");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of items delivered by a single call to
+     * {@link AsyncStreamCallable#onNext(java.util.List)}. By default, it's 64.
+     *
+     * @param batchSize The maximum size of every batch.
+     * @return This same builder.
+     */
+    public StreamTaskBuilder<T> batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be greater than zero.");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Configures what happens when the buffer is full. By default,
+     * the producer is {@link BackpressurePolicy#SUSPEND suspended}.
+     *
+     * @param backpressurePolicy The policy to apply.
+     * @return This same builder.
+     */
+    public StreamTaskBuilder<T> onBackpressure(@NonNull BackpressurePolicy backpressurePolicy) {
+        Utils.assertNonNull(backpressurePolicy, "BackpressurePolicy");
+        this.backpressurePolicy = backpressurePolicy;
+        return this;
+    }
+
+    @Override
+    public StreamTask<T> create() {
+        return new StreamTask<>(this, callable);
+    }
+
+    @Override
+    public StreamTask<T> execute() {
+        return create().execute();
+    }
+}
@@ -0,0 +1,200 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.internal.TimingWheel;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The slot shared by the {@link ResultTask}s executed with the same
+ * {@link ResultTaskBuilder#switchSlot(Object) switch} key, where only the latest one matters.
+ *
+ * <p>Executing a task in a slot supersedes the previous one: it is cancelled, if it's still
+ * in flight, and none of its pending callbacks are delivered, not even if it had already
+ * finished. The new task starts once its {@link ResultTaskBuilder#debounce(long, TimeUnit) debounce}
+ * and {@link ResultTaskBuilder#throttle(long, TimeUnit) throttle} windows have elapsed, waiting
+ * on the shared timing wheel, so superseded tasks that were still waiting never use a thread.
+ *
+ * <p>The slot is removed once the callbacks of its last task have been delivered and
+ * its throttle window has elapsed.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+final class SwitchSlot {
+
+    private static final ConcurrentMap<Object, SwitchSlot> SLOTS = new ConcurrentHashMap<>();
+
+    // The wheel timing the windows, if not the shared one. Only set by tests.
+    static volatile TimingWheel timingWheel;
+
+    private final Object key;
+
+    // Guarded by "this".
+    private ResultTask<?> current;
+    private TimingWheel.Timeout pendingStart;
+    private TimingWheel.Timeout expiration;
+    private long lastStartNanos;
+    private long throttleNanos;
+    private boolean started;
+    private boolean removed;
+
+    private SwitchSlot(Object key) {
+        this.key = key;
+    }
+
+    /**
+     * Makes the given task the current one of the slot of the given key, superseding the
+     * previous one, and starts it once its debounce and throttle windows have elapsed.
+     *
+     * @param entry The entry of the task, with the switch key and its windows.
+     * @param task  The task being executed.
+     * @param start The action that starts the work of the task.
+     */
+    static void submit(@NonNull Entry entry, @NonNull ResultTask<?> task, @NonNull Runnable start) {
+        for (; ; ) {
+            SwitchSlot slot = SLOTS.get(entry.key);
+            if (slot == null) {
+                SwitchSlot created = new SwitchSlot(entry.key);
+                slot = SLOTS.putIfAbsent(entry.key, created);
+                if (slot == null) {
+                    slot = created;
+                }
+            }
+            if (slot.switchTo(task, start, entry)) {
+                return;
+            }
+            // The slot has just been removed.
+        }
+    }
+
+    private boolean switchTo(ResultTask<?> task, Runnable start, Entry entry) {
+        final ResultTask<?> previous;
+        boolean startNow = false;
+        synchronized (this) {
+            if (removed) {
+                return false;
+            }
+            previous = current;
+            current = task;
+            entry.slot = this;
+            if (pendingStart != null) {
+                // The previous task never started, and never will.
+                pendingStart.cancel();
+                pendingStart = null;
+            }
+            if (expiration != null) {
+                expiration.cancel();
+                expiration = null;
+            }
+            this.throttleNanos = entry.throttleNanos;
+            final TimingWheel wheel = timingWheel();
+            final long now = wheel.nanoTime();
+            long delayNanos = entry.debounceNanos;
+            if (started && throttleNanos > 0) {
+                delayNanos = Math.max(delayNanos, lastStartNanos + throttleNanos - now);
+            }
+            if (delayNanos <= 0) {
+                started = true;
+                lastStartNanos = now;
+                startNow = true;
+            } else {
+                pendingStart = wheel.schedule(() -> startPending(task, start),
+                        delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (previous != null) {
+            previous.supersede();
+        }
+        if (startNow) {
+            start.run();
+        }
+        return true;
+    }
+
+    /**
+     * Called on the thread of the timing wheel once the windows of the given task have elapsed.
+     */
+    private void startPending(ResultTask<?> task, Runnable start) {
+        synchronized (this) {
+            if (current != task) {
+                return;
+            }
+            pendingStart = null;
+            started = true;
+            lastStartNanos = timingWheel().nanoTime();
+        }
+        // The task may have been cancelled while waiting.
+        if (!task.isCancelled()) {
+            start.run();
+        }
+    }
+
+    /**
+     * Called once the callbacks of the given task have been delivered or dropped, to remove
+     * the slot if it was the current one. Until then, a newer task can still drop them.
+     */
+    void release(@NonNull ResultTask<?> task) {
+        synchronized (this) {
+            if (current != task) {
+                return;
+            }
+            current = null;
+            if (pendingStart != null) {
+                // Cancelled while waiting to start.
+                pendingStart.cancel();
+                pendingStart = null;
+            }
+            final TimingWheel wheel = timingWheel();
+            final long remainingNanos = started ? lastStartNanos + throttleNanos - wheel.nanoTime() : 0;
+            if (remainingNanos > 0) {
+                // The next task must still respect the throttle window.
+                expiration = wheel.schedule(this::expire, remainingNanos, TimeUnit.NANOSECONDS);
+                return;
+            }
+            removed = true;
+        }
+        SLOTS.remove(key, this);
+    }
+
+    private static TimingWheel timingWheel() {
+        final TimingWheel wheel = timingWheel;
+        return wheel != null ? wheel : TimingWheel.getShared();
+    }
+
+    private void expire() {
+        synchronized (this) {
+            if (current != null || removed) {
+                return;
+            }
+            expiration = null;
+            removed = true;
+        }
+        SLOTS.remove(key, this);
+    }
+
+    /**
+     * The switch configuration of a task, only allocated for tasks executed in a slot.
+     */
+    static final class Entry {
+        final Object key;
+        final long debounceNanos;
+        final long throttleNanos;
+        // Set by the slot, before the task starts.
+        volatile SwitchSlot slot;
+
+        Entry(Object key, long debounceNanos, long throttleNanos) {
+            this.key = key;
+            this.debounceNanos = debounceNanos;
+            this.throttleNanos = throttleNanos;
+        }
+
+        void release(ResultTask<?> task) {
+            final SwitchSlot slot = this.slot;
+            if (slot != null) {
+                slot.release(task);
+            }
+        }
+    }
+}
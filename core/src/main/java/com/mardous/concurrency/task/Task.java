@@ -0,0 +1,730 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.Lifecycle;
+import com.mardous.concurrency.CallbackDispatcher;
+import com.mardous.concurrency.Utils;
+import com.mardous.concurrency.internal.PriorityThreadPoolExecutor;
+import com.mardous.concurrency.internal.TimingWheel;
+import com.mardous.concurrency.spi.Platform;
+import com.mardous.concurrency.spi.TaskInstrumentation;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.logging.Logger;
+
+/**
+ * A {@code task} is defined by a computation that runs on a background thread and
+ * may leave a result, which is published on the UI thread.
+ *
+ * <p>Currently, we provide two types:
+ * <ol>
+ *     <li>{@link SimpleTask}</li>
+ *     <li>{@link ResultTask}</li>
+ * </ol>
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public abstract class Task implements TaskLifecycleObserver {
+
+    protected volatile Lifecycle lifecycle;
+    protected volatile Executor executor;
+    protected volatile TaskConnection taskConnection;
+    protected volatile TaskPriority priority;
+    protected final RetryPolicy retryPolicy;
+    private final long deadlineNanos;
+    private final String name;
+    // Null while the instrumentation is disabled.
+    final TaskInstrumentation instrumentation;
+    @Nullable
+    final TaskScope scope;
+    // The scoped task that created this one, until this one joins the scope.
+    private Task parent;
+    // Null unless the task holds its results or defers its work while the lifecycle is stopped.
+    @Nullable
+    private final LifecycleBuffer lifecycleBuffer;
+    private final boolean holdResultsWhileStopped;
+    private final boolean deferWhileStopped;
+    final boolean keepLatestResult;
+    @Nullable
+    final Bulkhead bulkhead;
+
+    private static final AtomicReferenceFieldUpdater<Task, State> STATE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(Task.class, State.class, "state");
+
+    private static volatile boolean lifecycleWarningLogged;
+
+    // What the completion event delivers.
+    private static final int OUTCOME_NONE = 0;
+    private static final int OUTCOME_RESULT = 1;
+    private static final int OUTCOME_BAD_RESULT = 2;
+    private static final int OUTCOME_ERROR = 3;
+    private static final int OUTCOME_CANCELLED = 4;
+    private static final int OUTCOME_TIMEOUT = 5;
+
+    private volatile State state = State.IDLE;
+    private volatile int attemptCount;
+    private volatile boolean timedOut;
+    // Set when a newer task replaces this one, so none of its pending callbacks are delivered.
+    private volatile boolean superseded;
+    private volatile TimingWheel.Timeout deadlineTimeout;
+    private volatile TimingWheel.Timeout retryTimeout;
+
+    // The callbacks of the task are delivered by these two nodes, allocated once, instead of
+    // one lambda per callback. Both are published by the dispatcher queue, and so is the outcome.
+    private final TaskEvent startEvent = new TaskEvent(false);
+    private final TaskEvent completionEvent = new TaskEvent(true);
+    private int outcome;
+    private Object outcomeValue;
+
+    Task(TaskBuilder taskBuilder, TaskConnection taskConnection) {
+        this.lifecycle = taskBuilder.lifecycle;
+        this.executor = taskBuilder.getExecutor();
+        this.priority = taskBuilder.priority;
+        this.retryPolicy = taskBuilder.retryPolicy;
+        this.deadlineNanos = taskBuilder.deadlineNanos;
+        this.name = taskBuilder.name != null ? taskBuilder.name
+                : taskConnection != null ? taskConnection.getClass().getName() : getClass().getName();
+        this.instrumentation = Platform.getTaskInstrumentation();
+        final Task parent = TaskScope.currentTask();
+        if (taskBuilder.scope != null) {
+            this.scope = taskBuilder.scope;
+        } else if (parent != null) {
+            this.scope = parent.scope;
+            this.parent = parent;
+        } else {
+            this.scope = null;
+        }
+        this.taskConnection = taskConnection;
+        this.holdResultsWhileStopped = taskBuilder.holdResultsWhileStopped;
+        this.deferWhileStopped = taskBuilder.deferWhileStopped;
+        this.keepLatestResult = taskBuilder.keepLatestResult;
+        this.bulkhead = taskBuilder.bulkheadKey != null
+                ? Bulkhead.obtain(taskBuilder.bulkheadKey, taskBuilder.maxConcurrency) : null;
+        this.lifecycleBuffer = lifecycle != null && (holdResultsWhileStopped || deferWhileStopped)
+                ? LifecycleBuffer.of(lifecycle) : null;
+
+        if (lifecycle != null)
+            lifecycle.addObserver(this);
+        else if (scope == null && !lifecycleWarningLogged) {
+            // Logged once, so that running many tasks does not flood the log.
+            lifecycleWarningLogged = true;
+            Logger.getLogger("SimpleConcurrency").warning("Running a Task without an attached Lifecycle may produce memory leaks");
+        }
+    }
+
+    /**
+     * Creates a task used internally by the given one, with the same configuration. It has
+     * neither a lifecycle nor a connection, so it posts no callbacks, no deadline and no scope,
+     * but it shares the bulkhead of the given task.
+     */
+    Task(Task parent) {
+        this.executor = parent.executor;
+        this.priority = parent.priority;
+        this.retryPolicy = parent.retryPolicy;
+        this.deadlineNanos = 0;
+        this.name = parent.name;
+        this.instrumentation = parent.instrumentation;
+        this.scope = null;
+        this.lifecycleBuffer = null;
+        this.holdResultsWhileStopped = false;
+        this.deferWhileStopped = false;
+        this.keepLatestResult = false;
+        this.bulkhead = parent.bulkhead;
+    }
+
+    /**
+     * Executes the task. The task returns itself (this) so that the caller
+     * can keep a reference to it.
+     *
+     * @return this same task.
+     */
+    @MainThread
+    public abstract Task execute();
+
+    /**
+     * Attempts to cancel execution of this task.  This attempt will
+     * fail if the task has already completed, has already been cancelled,
+     * or could not be cancelled for some other reason. If successful,
+     * and this task has not started when {@code cancel} is called,
+     * this task should never run.  If the task has already started,
+     * then the {@code mayInterruptIfRunning} parameter determines
+     * whether the thread executing this task should be interrupted in
+     * an attempt to stop the task.
+     *
+     * <p>After this method returns, subsequent calls to {@link #isCancelled}
+     * will always return {@code true}.
+     *
+     * @param mayInterruptIfRunning {@code true} if the thread executing this
+     *                              task should be interrupted; otherwise, in-progress tasks are allowed
+     *                              to complete
+     * @return {@code false} if the task could not be cancelled,
+     * typically because it has already completed normally;
+     * {@code true} otherwise
+     */
+    @MainThread
+    public abstract boolean cancel(boolean mayInterruptIfRunning);
+
+    /**
+     * Returns true if this task was cancelled before it completed normally
+     *
+     * @return {@code true} if this task was cancelled before it completed
+     */
+    public final boolean isCancelled() {
+        return state == State.CANCELLED;
+    }
+
+    /**
+     * Returns true if this task completed normally
+     *
+     * @return {@code true} if this task completed
+     */
+    public final boolean isFinished() {
+        return state == State.FINISHED;
+    }
+
+    /**
+     * Gets the name of this task.
+     *
+     * @see TaskBuilder#name(String)
+     */
+    @NonNull
+    public final String getName() {
+        return name;
+    }
+
+    /**
+     * Returns true if this task was cancelled because its deadline expired.
+     *
+     * @return {@code true} if this task timed out
+     * @see TaskBuilder#deadline(long, TimeUnit)
+     */
+    public final boolean isTimedOut() {
+        return timedOut && isCancelled();
+    }
+
+    /**
+     * Gets the {@link State state} of this task.
+     */
+    public final State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the number of attempts this task has started so far. It's greater
+     * than one only if the task has been retried after a failure.
+     *
+     * @see TaskBuilder#retry(RetryPolicy)
+     */
+    public final int getAttemptCount() {
+        return attemptCount;
+    }
+
+    /**
+     * Registers the start of a new attempt. Called on the worker thread.
+     */
+    @WorkerThread
+    final void beginAttempt() {
+        attemptCount++;
+    }
+
+    /**
+     * Schedules another attempt after the current one has failed with the
+     * given error, if the {@link RetryPolicy retry policy} allows it.
+     *
+     * @param e        The error of the failed attempt.
+     * @param attempt  The action that submits the next attempt.
+     * @return {@code true} if another attempt was scheduled, {@code false} if the
+     * error must be delivered.
+     */
+    @WorkerThread
+    final boolean scheduleRetry(@NonNull Exception e, @NonNull Runnable attempt) {
+        final RetryPolicy policy = retryPolicy;
+        final int count = attemptCount;
+        if (policy == null || isCancelled() || !policy.shouldRetry(count, e)) {
+            return false;
+        }
+        final long delayMillis = policy.getDelayMillis(count);
+        final TaskConnection connection = taskConnection;
+        if (connection != null) {
+            post(() -> connection.onRetry(count, e, delayMillis));
+        }
+        retryTimeout = RetryPolicy.schedule(() -> {
+            // The task may have been cancelled while waiting.
+            if (!isCancelled()) {
+                attempt.run();
+            }
+        }, delayMillis);
+        // The task may have been cancelled before the timeout was published.
+        if (isCancelled()) {
+            cancelTimeouts();
+        }
+        return true;
+    }
+
+    /**
+     * Gets the {@link TaskPriority priority} of this task.
+     */
+    @NonNull
+    public final TaskPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Changes the {@link TaskPriority priority} of this task.
+     *
+     * <p>If the task is still waiting in one of the shared pools from
+     * {@link com.mardous.concurrency.TaskExecutors}, it's moved to its new place
+     * in the queue, i.e. raising the priority of work that the user is now waiting for.
+     * A task that is already running keeps its place, but it will pick up the
+     * new priority the next time it submits work.
+     *
+     * @param priority The new priority.
+     */
+    public final void setPriority(@NonNull TaskPriority priority) {
+        Utils.assertNonNull(priority, "Priority");
+        this.priority = priority;
+        onPriorityChanged(priority);
+    }
+
+    /**
+     * Called when the priority of this task has changed, to move the
+     * work already submitted by the task.
+     *
+     * @see #reprioritize(Future, TaskPriority)
+     */
+    void onPriorityChanged(TaskPriority priority) {
+    }
+
+    /**
+     * Called on the main thread once the completion callbacks of this
+     * task have been delivered or dropped.
+     */
+    @MainThread
+    void onShutdown() {
+    }
+
+    /**
+     * Called once this task has finished or has been cancelled, on the thread that performed
+     * the transition and before its completion callbacks are posted.
+     *
+     * @param state  Either {@link State#FINISHED} or {@link State#CANCELLED}.
+     * @param result The result the task finished with, if any.
+     * @param error  The error the task finished with, if any.
+     */
+    void onTerminated(State state, @Nullable Object result, @Nullable Exception error) {
+    }
+
+    /**
+     * Cancels this task because a newer one replaces it. The callbacks of this task that
+     * have not been delivered yet, including the ones of a task that has already finished,
+     * are dropped.
+     */
+    final void supersede() {
+        superseded = true;
+        cancel(true);
+    }
+
+    /**
+     * Moves a future submitted by this task to the place of the given priority.
+     */
+    final void reprioritize(@Nullable Future<?> future, TaskPriority priority) {
+        if (future instanceof TaskFuture) {
+            final TaskFuture<?> taskFuture = (TaskFuture<?>) future;
+            if (bulkhead != null && bulkhead.reprioritize(taskFuture, priority)) {
+                return;
+            }
+            if (executor instanceof PriorityThreadPoolExecutor) {
+                ((PriorityThreadPoolExecutor) executor).reprioritize(taskFuture, () -> taskFuture.setPriority(priority));
+            } else {
+                taskFuture.setPriority(priority);
+            }
+        }
+    }
+
+    /**
+     * Internally sets the state of this task.
+     *
+     * @see #setState(State, Runnable)
+     */
+    protected final boolean setState(final State newState) {
+        return setState(newState, null);
+    }
+
+    /**
+     * Internally sets the state of this task.
+     *
+     * <p>Transitions are atomic, so when several threads race to move the task
+     * out of the same state (i.e. a cancellation against a normal finish) only
+     * one of them wins. The given {@code outcome}, if any, is posted on the main
+     * thread right before the callbacks of the new state, and only if this call
+     * was the one that performed the transition.
+     *
+     * @param newState The state to move to.
+     * @param outcome  An optional action to post before the callbacks of the new state.
+     * @return {@code true} if the transition was performed, {@code false} if the
+     * task was already in a state from which it cannot move to {@code newState}.
+     */
+    protected final boolean setState(final State newState, @Nullable final Runnable outcome) {
+        return setState(newState, outcome, OUTCOME_NONE, null);
+    }
+
+    /**
+     * Finishes this task and posts its result on the main thread, where it's handed
+     * to {@link #deliverResult(Object, boolean)}. Unlike {@link #setState(State, Runnable)},
+     * this doesn't allocate.
+     *
+     * @param result     The result of the task.
+     * @param acceptable Whether the result passed the filters of the task.
+     * @return {@code true} if the task was finished by this call.
+     */
+    @WorkerThread
+    final boolean finishWith(@Nullable Object result, boolean acceptable) {
+        return setState(State.FINISHED, null, acceptable ? OUTCOME_RESULT : OUTCOME_BAD_RESULT, result);
+    }
+
+    /**
+     * Delivers the result given to {@link #finishWith(Object, boolean)} to the connection
+     * of this task, right before {@link TaskConnection#onFinished()}.
+     */
+    @MainThread
+    void deliverResult(@Nullable Object result, boolean acceptable) {
+    }
+
+    private boolean setState(final State newState, @Nullable final Runnable outcome, int outcomeType, @Nullable Object outcomeValue) {
+        Utils.assertNonNull(newState, "State");
+        State current;
+        do {
+            current = state;
+            if (!current.canMoveTo(newState)) {
+                if (newState == State.RUNNING) {
+                    if (current == State.RUNNING) {
+                        throw new IllegalStateException("Cannot execute task: the task is already running.");
+                    } else if (current == State.FINISHED) {
+                        throw new IllegalArgumentException("Cannot execute task: the task was already executed.");
+                    } else if (current == State.CANCELLED) {
+                        throw new IllegalArgumentException("Cannot execute task: the task was canceled previously.");
+                    }
+                }
+                return false;
+            }
+        } while (!STATE_UPDATER.compareAndSet(this, current, newState));
+
+        if (newState == State.RUNNING) {
+            if (deadlineNanos > 0) {
+                deadlineTimeout = TimingWheel.getShared().schedule(this::onDeadline, deadlineNanos, TimeUnit.NANOSECONDS);
+            }
+        } else {
+            cancelTimeouts();
+            if (scope != null) {
+                scope.remove(this);
+            }
+            if (outcomeType == OUTCOME_ERROR) {
+                onTerminated(newState, null, (Exception) outcomeValue);
+            } else {
+                onTerminated(newState, outcomeValue, null);
+            }
+        }
+
+        final TaskConnection connection = taskConnection;
+        if (connection == null) {
+            return true;
+        }
+        if (newState == State.CANCELLED) {
+            outcomeType = timedOut ? OUTCOME_TIMEOUT : OUTCOME_CANCELLED;
+        }
+        if (instrumentation != null && newState != State.RUNNING) {
+            instrumentation.recordOutcome(name, outcomeType == OUTCOME_ERROR ? TaskInstrumentation.Outcome.ERROR
+                    : outcomeType == OUTCOME_TIMEOUT ? TaskInstrumentation.Outcome.TIMEOUT
+                    : outcomeType == OUTCOME_CANCELLED ? TaskInstrumentation.Outcome.CANCELLED
+                    : TaskInstrumentation.Outcome.SUCCESS);
+        }
+        if (outcome != null) {
+            post(outcome);
+        }
+        if (newState == State.RUNNING) {
+            connection.mTask = this;
+            post(startEvent);
+            if (scope != null) {
+                joinScope();
+            }
+        } else {
+            this.outcome = outcomeType;
+            this.outcomeValue = outcomeValue;
+            post(completionEvent);
+        }
+        return true;
+    }
+
+    @MainThread
+    private void deliverCompletion() {
+        final TaskConnection connection = taskConnection;
+        final Object value = outcomeValue;
+        outcomeValue = null;
+        switch (outcome) {
+            case OUTCOME_RESULT:
+                deliverResult(value, true);
+                break;
+            case OUTCOME_BAD_RESULT:
+                deliverResult(value, false);
+                break;
+            case OUTCOME_ERROR:
+                connection.onError((Exception) value);
+                break;
+            case OUTCOME_CANCELLED:
+                connection.onCancelled();
+                break;
+            case OUTCOME_TIMEOUT:
+                connection.onTimeout();
+                break;
+        }
+        connection.onFinished();
+        completeShutdown();
+    }
+
+    private void joinScope() {
+        final Task parent = this.parent;
+        this.parent = null;
+        if (!scope.add(this) || (parent != null && parent.isCancelled())) {
+            // The scope has been closed or cancelled, or the task that created this one.
+            cancel(true);
+        } else if (getState() != State.RUNNING) {
+            // Finished or cancelled before joining, so it could not leave.
+            scope.remove(this);
+        }
+    }
+
+    /**
+     * Submits a future of this task to its executor, through its {@link Bulkhead bulkhead}
+     * if it has one. If the executor rejects it, the task finishes with the error. While the lifecycle is stopped,
+     * the submission is deferred if the task was {@link TaskBuilder#deferWhileStopped(boolean) configured}
+     * to do so.
+     */
+    final void submit(final TaskFuture<?> future) {
+        if (deferWhileStopped && lifecycleBuffer != null
+                && lifecycleBuffer.defer(() -> dispatch(future))) {
+            return;
+        }
+        dispatch(future);
+    }
+
+    private void dispatch(TaskFuture<?> future) {
+        if (bulkhead != null) {
+            bulkhead.submit(future);
+            return;
+        }
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            future.reject(e);
+        }
+    }
+
+    /**
+     * Delivers the completion callbacks held while the lifecycle was stopped.
+     */
+    @MainThread
+    final void flushCompletion() {
+        if (instrumentation != null) {
+            // The time spent on hold is not a dispatch delay.
+            completionEvent.postedAt = System.nanoTime();
+        }
+        completionEvent.run();
+    }
+
+    /**
+     * Drops the completion callbacks held while the lifecycle was stopped, or
+     * the ones of a superseded task, releasing the references of this task.
+     */
+    @MainThread
+    final void discardCompletion() {
+        outcomeValue = null;
+        completeShutdown();
+    }
+
+    /**
+     * Called on the thread of the timing wheel when the deadline of this task expires.
+     */
+    private void onDeadline() {
+        if (getState() == State.RUNNING) {
+            timedOut = true;
+            cancel(true);
+        }
+    }
+
+    private void cancelTimeouts() {
+        TimingWheel.Timeout timeout = deadlineTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        timeout = retryTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Internally cancels this task.
+     */
+    protected final <T> boolean doCancellation(Future<T> future, boolean mayInterruptIfRunning) {
+        final TaskConnection connection = taskConnection;
+        if (setState(State.CANCELLED)) {
+            if (future != null) {
+                future.cancel(mayInterruptIfRunning);
+            }
+            if (connection != null) {
+                connection.onCancelRequested(mayInterruptIfRunning);
+            }
+            return true;
+        }
+        return isCancelled();
+    }
+
+    private void post(TaskEvent event) {
+        if (instrumentation != null) {
+            event.postedAt = System.nanoTime();
+        }
+        CallbackDispatcher.getInstance().dispatch(event);
+    }
+
+    /**
+     * Posts an action on the main thread. Actions are delivered in batches
+     * by the shared {@link CallbackDispatcher}.
+     *
+     * <p>Unlike the start and completion callbacks, which reuse the events of the task, this
+     * allocates the node queuing the action and, while the instrumentation is enabled, a
+     * wrapper measuring its dispatch latency.
+     */
+    protected final void post(@NonNull Runnable action) {
+        final TaskInstrumentation instrumentation = this.instrumentation;
+        if (instrumentation != null) {
+            final long postedAt = System.nanoTime();
+            CallbackDispatcher.getInstance().dispatch(() -> {
+                instrumentation.recordDispatch(name, System.nanoTime() - postedAt);
+                action.run();
+            });
+        } else {
+            CallbackDispatcher.getInstance().dispatch(action);
+        }
+    }
+
+    /**
+     * Finishes this task and posts an error on the main thread. In other words,
+     * calls the {@link TaskConnection#onError(Exception)} method.
+     *
+     * <p>Nothing is posted if the task was cancelled previously.
+     */
+    @WorkerThread
+    protected final void postError(Exception e) {
+        setState(State.FINISHED, null, OUTCOME_ERROR, e);
+    }
+
+    private void completeShutdown() {
+        onShutdown();
+        if (lifecycle != null)
+            lifecycle.removeObserver(this);
+
+        if (taskConnection != null) {
+            // To reduce footprint
+            taskConnection.mTask = null;
+            taskConnection = null;
+        }
+    }
+
+    @Override
+    public void onLifecycleDestroyed() {
+        cancel(true);
+    }
+
+    /**
+     * Delivers either the {@link TaskConnection#onPreExecute() start} or the completion
+     * callbacks of this task.
+     */
+    private final class TaskEvent extends CallbackDispatcher.Node {
+        private final boolean completion;
+        // Only set while the instrumentation is enabled.
+        long postedAt;
+
+        TaskEvent(boolean completion) {
+            this.completion = completion;
+        }
+
+        @Override
+        public void run() {
+            if (superseded) {
+                if (completion) {
+                    discardCompletion();
+                }
+                return;
+            }
+            if (!completion && taskConnection == null) {
+                // A cancellation raced the start of the task, and its completion
+                // was posted and delivered first. Nothing is left to start.
+                return;
+            }
+            if (completion && holdResultsWhileStopped && lifecycleBuffer != null
+                    && lifecycleBuffer.hold(Task.this)) {
+                return;
+            }
+            if (instrumentation != null) {
+                instrumentation.recordDispatch(name, System.nanoTime() - postedAt);
+            }
+            // Tasks executed from the callbacks join the scope of this task.
+            final Task previous = scope != null ? TaskScope.enter(Task.this) : null;
+            try {
+                if (completion) {
+                    deliverCompletion();
+                } else {
+                    taskConnection.onPreExecute();
+                }
+            } finally {
+                if (scope != null) {
+                    TaskScope.restore(previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Represents the current state of a task.
+     */
+    public enum State {
+        /**
+         * Means the task is created but has been not executed yet.
+         */
+        IDLE,
+        /**
+         * Means the task is currently running.
+         */
+        RUNNING,
+        /**
+         * Means the task has been previously cancelled by the user.
+         */
+        CANCELLED,
+        /**
+         * Means the task has finished its execution normally
+         * (with no calls to {@link #cancel(boolean)}).
+         */
+        FINISHED;
+
+        /**
+         * Checks whether a task in this state is allowed to move to the given one.
+         */
+        boolean canMoveTo(State newState) {
+            switch (this) {
+                case IDLE:
+                    return newState == RUNNING || newState == CANCELLED;
+                case RUNNING:
+                    return newState == FINISHED || newState == CANCELLED;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.lifecycle.Lifecycle;
+import com.mardous.concurrency.TaskExecutors;
+import com.mardous.concurrency.Utils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public abstract class TaskBuilder<TaskType extends Task> {
+
+    /**
+     * The {@link Executor} that will execute the task.
+     *
+     * <p>When no executor is configured, tasks borrow the shared {@link TaskExecutors#getDefault() default}
+     * pool, however you can change it by calling {@link #using(Executor)} with an executor configured
+     * for your use case.
+     *
+     * @see #using(Executor)
+     * @see #usingPoolExecutor()
+     * @see #usingIoExecutor()
+     */
+    Executor executor;
+
+    Lifecycle lifecycle;
+
+    TaskPriority priority = TaskPriority.NORMAL;
+
+    RetryPolicy retryPolicy;
+
+    long deadlineNanos;
+
+    String name;
+
+    TaskScope scope;
+
+    boolean holdResultsWhileStopped = true;
+
+    boolean keepLatestResult;
+
+    boolean deferWhileStopped;
+
+    Object bulkheadKey;
+
+    int maxConcurrency;
+
+    /**
+     * Configures this builder to use the shared pool of threads intended for CPU-bound work.
+     *
+     * <p>You should use this only if you are planing to execute a small, CPU-bound task,
+     * which can benefit from a bounded pool and queuing. The pool grows if its tasks
+     * turn out to block, and its queue can be bounded with
+     * {@link TaskExecutors#setSaturationPolicy(int, com.mardous.concurrency.SaturationPolicy)}.
+     *
+     * @see #using(Executor)
+     * @see TaskExecutors#cpu()
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> usingPoolExecutor() {
+        return using(TaskExecutors.cpu());
+    }
+
+    /**
+     * Configures this builder to use the shared pool of threads intended for blocking work,
+     * such as network or disk operations.
+     *
+     * @see #using(Executor)
+     * @see TaskExecutors#io()
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> usingIoExecutor() {
+        return using(TaskExecutors.io());
+    }
+
+    /**
+     * Configures this builder to use the shared work-stealing pool, intended for CPU-bound,
+     * data-parallel work. Combine it with an {@link com.mardous.concurrency.AsyncSplittableCallable}
+     * to split the work in parts that run in parallel.
+     *
+     * @see #using(Executor)
+     * @see TaskExecutors#forkJoin()
+     * @return this same builder instance.
+     */
+    @RequiresApi(21)
+    public TaskBuilder<TaskType> usingForkJoin() {
+        return using(TaskExecutors.forkJoin());
+    }
+
+    /**
+     * Configures this builder to run the task on a virtual thread of its own, when running on
+     * Java 21 or newer. Intended for server-side and desktop use of blocking work: there's no
+     * limit on the number of tasks blocking at the same time, and cancelling a task interrupts
+     * its virtual thread just like a pool thread. On older runtimes, including Android,
+     * the task uses the shared {@link TaskExecutors#io() IO-bound} pool instead.
+     *
+     * @see #using(Executor)
+     * @see TaskExecutors#virtualThreads()
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> usingVirtualThreads() {
+        return using(TaskExecutors.virtualThreads());
+    }
+
+    /**
+     * Configures the {@link Executor} that will execute the task.
+     *
+     * <p>NOTE: By default, we use the shared {@link TaskExecutors#getDefault() default} pool.
+     * Prefer the shared pools from {@link TaskExecutors} over creating new executors for every
+     * task, otherwise the number of threads will grow with the number of tasks.
+     *
+     * @param executor The executor to use.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> using(@NonNull Executor executor) {
+        Utils.assertNonNull(executor, "Executor");
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Gets the executor configured for this builder, borrowing the shared
+     * {@link TaskExecutors#getDefault() default} pool if none was configured.
+     */
+    Executor getExecutor() {
+        Executor executor = this.executor;
+        return executor != null ? executor : TaskExecutors.getDefault();
+    }
+
+    /**
+     * Copies the configuration of the given builder into this one.
+     */
+    void inherit(TaskBuilder<?> other) {
+        this.executor = other.executor;
+        this.lifecycle = other.lifecycle;
+        this.priority = other.priority;
+        this.retryPolicy = other.retryPolicy;
+        this.deadlineNanos = other.deadlineNanos;
+        this.name = other.name;
+        this.scope = other.scope;
+        this.holdResultsWhileStopped = other.holdResultsWhileStopped;
+        this.keepLatestResult = other.keepLatestResult;
+        this.deferWhileStopped = other.deferWhileStopped;
+        this.bulkheadKey = other.bulkheadKey;
+        this.maxConcurrency = other.maxConcurrency;
+    }
+
+    /**
+     * Configures the {@link TaskPriority priority} of the task. By default, tasks
+     * have {@link TaskPriority#NORMAL normal} priority.
+     *
+     * <p>The priority decides the order in which the shared pools from {@link TaskExecutors}
+     * pick up waiting tasks, and the priority of the worker thread while the task runs.
+     *
+     * @param priority The priority of the task.
+     * @return this same builder instance.
+     * @see Task#setPriority(TaskPriority)
+     */
+    public TaskBuilder<TaskType> priority(@NonNull TaskPriority priority) {
+        Utils.assertNonNull(priority, "Priority");
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Configures the {@link RetryPolicy policy} used to retry the task when it fails.
+     *
+     * <p>Every failed attempt is reported to {@link TaskConnection#onRetry(int, Exception, long)},
+     * and {@link TaskConnection#onError(Exception)} is only called once the last attempt has failed,
+     * or when the error is not worth retrying according to the policy.
+     *
+     * @param retryPolicy The policy to use.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> retry(@NonNull RetryPolicy retryPolicy) {
+        Utils.assertNonNull(retryPolicy, "RetryPolicy");
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Configures the name of the task, used to tag the measurements taken by the
+     * {@link com.mardous.concurrency.spi.TaskInstrumentation instrumentation}, if any.
+     *
+     * <p>By default, tasks are named after the class of their callbacks.
+     *
+     * @param name The name of the task.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> name(@NonNull String name) {
+        Utils.assertNonNull(name, "Name");
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Configures the maximum time the task may take, counted from the moment it's
+     * executed, including the time it waits for a thread and between retries.
+     *
+     * <p>A task still running when its deadline expires is cancelled, interrupting its
+     * thread, and {@link TaskConnection#onTimeout()} is called instead of
+     * {@link TaskConnection#onCancelled()}.
+     *
+     * <p>Deadlines are tracked by a shared timing wheel, so they are cheap even when there are
+     * many pending tasks, but they are only accurate to about 10 milliseconds.
+     *
+     * @param duration The maximum duration of the task.
+     * @param unit     The unit of the duration.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> deadline(long duration, @NonNull TimeUnit unit) {
+        Utils.assertNonNull(unit, "TimeUnit");
+        if (duration <= 0) {
+            throw new IllegalArgumentException("The duration must be greater than zero.");
+        }
+        this.deadlineNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Attach this {@link Task task} to the provided {@link Lifecycle}.
+     *
+     * <p>The task is cancelled when the lifecycle is destroyed. While the lifecycle is stopped
+     * (below {@link Lifecycle.State#STARTED STARTED}), the outcome of the task and the
+     * {@link TaskConnection#onFinished() onFinished()} callback are held, and delivered along
+     * with the other held callbacks of the lifecycle once it's started again.
+     *
+     * @param lifecycle The lifecycle to attach to.
+     * @return this same builder instance.
+     * @see #holdResultsWhileStopped(boolean)
+     * @see #keepLatestResult(boolean)
+     * @see #deferWhileStopped(boolean)
+     */
+    public TaskBuilder<TaskType> attachLifecycle(@NonNull Lifecycle lifecycle) {
+        Utils.assertNonNull(lifecycle, "Lifecycle");
+        this.lifecycle = lifecycle;
+        return this;
+    }
+
+    /**
+     * Limits the number of tasks with the given key that can run at the same time, whatever
+     * the executors they use, i.e. to keep many threads from hitting the same database at once.
+     *
+     * <p>Tasks exceeding the limit wait for their turn without taking a thread from the pool,
+     * ordered by priority. The waiting can be monitored through {@link Bulkhead#get(Object)}.
+     *
+     * @param key            The key of the resource, shared by every task using it.
+     * @param maxConcurrency The maximum number of tasks running at the same time. If it
+     *                       differs from the one given previously for the same key, the limit
+     *                       is updated.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> limitConcurrency(@NonNull Object key, int maxConcurrency) {
+        Utils.assertNonNull(key, "Key");
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("The maximum concurrency must be greater than zero.");
+        }
+        this.bulkheadKey = key;
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Configures whether the outcome of the task is held while its {@link #attachLifecycle(Lifecycle) lifecycle}
+     * is stopped. It's held by default, so no UI work is done for a screen nobody sees.
+     *
+     * @param hold {@code false} to deliver the outcome right away.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> holdResultsWhileStopped(boolean hold) {
+        this.holdResultsWhileStopped = hold;
+        return this;
+    }
+
+    /**
+     * Configures whether only the latest outcome is kept while the lifecycle is stopped. When a
+     * task with the same {@link #name(String) name} completes while the outcome of this one is
+     * held, the callbacks of this one are dropped.
+     *
+     * <p>This is useful for work that is refreshed periodically, where only the last
+     * result is worth showing.
+     *
+     * @param keepLatest {@code true} to keep only the latest outcome.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> keepLatestResult(boolean keepLatest) {
+        this.keepLatestResult = keepLatest;
+        return this;
+    }
+
+    /**
+     * Configures whether the work of the task waits while its {@link #attachLifecycle(Lifecycle) lifecycle}
+     * is stopped. It's submitted to its executor once the lifecycle is started again, so it doesn't
+     * compete for threads with the work of the visible screen. Intended for
+     * {@link TaskPriority#LOW low priority} work, such as prefetching.
+     *
+     * @param defer {@code true} to defer the work while the lifecycle is stopped.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> deferWhileStopped(boolean defer) {
+        this.deferWhileStopped = defer;
+        return this;
+    }
+
+    /**
+     * Executes the {@link Task task} in the given {@link TaskScope scope}, so it can be cancelled
+     * or waited for along with the other tasks of the scope.
+     *
+     * <p>Tasks created while a task of a scope is running join that scope by default.
+     *
+     * @param scope The scope of the task.
+     * @return this same builder instance.
+     */
+    public TaskBuilder<TaskType> scope(@NonNull TaskScope scope) {
+        Utils.assertNonNull(scope, "TaskScope");
+        this.scope = scope;
+        return this;
+    }
+
+    /**
+     * Creates a new {@link Task task}.
+     * <p>Its behaviour will depend mainly on the type of builder you're using.
+     *
+     * @return The created task.
+     */
+    public abstract TaskType create();
+
+    /**
+     * Creates a new {@link Task task} and immediately proceeds to execute it.
+     *
+     * @return The executed task.
+     */
+    public abstract TaskType execute();
+}
@@ -1,5 +1,9 @@
 package com.mardous.concurrency.task;
 
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Callable;
+
 /**
  * An {@code interface} used to listen to events occurred during the
  * execution of a {@link Task}.
@@ -7,19 +11,24 @@ package com.mardous.concurrency.task;
  * <ol>
  *     <li>{@link #onPreExecute()}</lo>
  *     <li>{@link #onCancelled()}</lo>
+ *     <li>{@link #onTimeout()}</lo>
  *     <li>{@link #onError(Exception)}</lo>
+ *     <li>{@link #onRetry(int, Exception, long)}</lo>
  * </ol>
  *
  * @author Christians Martínez Alvarado (mardous)
  */
 public abstract class TaskConnection {
 
+    // The connections running on the current thread on behalf of a task that is not their own.
+    private static final ThreadLocal<Binding> BINDINGS = new ThreadLocal<>();
+
     /**
      * Keeps a reference to the associated task.
      * Once the task has finished, we set its value to null
      * in order to avoid memory leaks.
      */
-    Task mTask;
+    volatile Task mTask;
 
     /**
      * Attempts to cancel execution of the associated task.  This attempt will
@@ -42,9 +51,8 @@ public abstract class TaskConnection {
      * {@code true} otherwise
      */
     protected boolean cancel(boolean mayInterruptIfRunning) {
-        synchronized (this) {
-            return mTask != null && mTask.cancel(mayInterruptIfRunning);
-        }
+        Task task = getBoundTask();
+        return task != null && task.cancel(mayInterruptIfRunning);
     }
 
     /**
@@ -74,11 +82,68 @@ public abstract class TaskConnection {
      * @return {@code true} if the task was cancelled, {@code false} otherwise.
      */
     protected boolean isCancelled() {
-        synchronized (this) {
-            return mTask != null && mTask.isCancelled();
+        Task task = getBoundTask();
+        return task != null && task.isCancelled();
+    }
+
+    /**
+     * Returns true if the associated task is currently running, that is, it has been
+     * executed and has neither finished nor been cancelled yet.
+     *
+     * @return {@code true} if the task is running, {@code false} otherwise.
+     */
+    protected boolean isRunning() {
+        Task task = getBoundTask();
+        return task != null && task.getState() == Task.State.RUNNING;
+    }
+
+    /**
+     * Gets the task this connection works for on the current thread: the one it's
+     * {@link #callFor(Task, Callable) called for}, if any, or else its own task.
+     */
+    @Nullable
+    final Task getBoundTask() {
+        for (Binding binding = BINDINGS.get(); binding != null; binding = binding.previous) {
+            if (binding.connection == this) {
+                return binding.task;
+            }
+        }
+        return mTask;
+    }
+
+    /**
+     * Calls the given callable, which belongs to this connection, on behalf of the given task.
+     * Meanwhile, {@link #cancel(boolean)}, {@link #isCancelled()} and {@link #isRunning()} refer
+     * to that task on the current thread, while the associated task of this connection, which
+     * its callbacks are delivered to, remains the same.
+     */
+    final <T> T callFor(Task task, Callable<T> callable) throws Exception {
+        final Binding previous = BINDINGS.get();
+        BINDINGS.set(new Binding(this, task, previous));
+        try {
+            return callable.call();
+        } finally {
+            if (previous != null) {
+                BINDINGS.set(previous);
+            } else {
+                BINDINGS.remove();
+            }
         }
     }
 
+    /**
+     * Called right after the associated {@link Task} of this {@link TaskConnection} has been
+     * cancelled, on the thread that cancelled it, so that work started by the task on other
+     * threads can be stopped as well. Unlike the other callbacks, this method is <b>not</b>
+     * posted to the main thread.
+     *
+     * <p>Default implementation does nothing.
+     *
+     * @param mayInterruptIfRunning Whether the task was cancelled with interruption.
+     */
+    protected void onCancelRequested(boolean mayInterruptIfRunning) {
+    }
+
     /**
      * Called when the associated {@link Task} of this
      * {@link TaskConnection} is ready to execute. This method will always
@@ -99,6 +164,19 @@ public abstract class TaskConnection {
     protected void onCancelled() {
     }
 
+    /**
+     * Called when the associated {@link Task} of this {@link TaskConnection} has been
+     * cancelled because its deadline expired. This method will always be called from the
+     * <b>main</b> {@link Thread thread}.
+     *
+     * <p>Default implementation calls {@link #onCancelled()}.
+     *
+     * @see TaskBuilder#deadline(long, java.util.concurrent.TimeUnit)
+     */
+    protected void onTimeout() {
+        onCancelled();
+    }
+
     /**
      * Called when the associated {@link Task} of this {@link TaskConnection} has finished
      * in an unexpected way due to an error during its execution. This method will always
@@ -113,6 +191,21 @@ public abstract class TaskConnection {
     protected void onError(Exception e) {
     }
 
+    /**
+     * Called when an attempt of the associated {@link Task} of this {@link TaskConnection}
+     * has failed and the task is going to try again, according to its
+     * {@link RetryPolicy retry policy}. This method will always be called from the
+     * <b>main</b> {@link Thread thread}.
+     *
+     * <p>Default implementation does nothing.
+     *
+     * @param attempt     The number of the failed attempt, starting at 1.
+     * @param e           An {@link Exception} describing the error of the failed attempt.
+     * @param delayMillis The time to wait before the next attempt, in milliseconds.
+     */
+    protected void onRetry(int attempt, Exception e, long delayMillis) {
+    }
+
     /**
      * Called when the associated {@link Task} of this {@link TaskConnection} has finished.
      * This is a generic callback and will be called regardless of the final state of the task
@@ -124,4 +217,16 @@ public abstract class TaskConnection {
      */
     protected void onFinished() {
     }
+
+    private static final class Binding {
+        final TaskConnection connection;
+        final Task task;
+        final Binding previous;
+
+        Binding(TaskConnection connection, Task task, Binding previous) {
+            this.connection = connection;
+            this.task = task;
+            this.previous = previous;
+        }
+    }
 }
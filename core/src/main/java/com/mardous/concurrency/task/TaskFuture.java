@@ -0,0 +1,159 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.mardous.concurrency.internal.Prioritized;
+import com.mardous.concurrency.internal.PriorityThreadPoolExecutor;
+import com.mardous.concurrency.internal.Rejectable;
+import com.mardous.concurrency.spi.TaskInstrumentation;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * The {@link FutureTask} submitted by tasks to their executor. It carries
+ * the priority of the task, so it can be ordered in a priority queue, and
+ * measures its queue wait and execution time when the instrumentation is enabled.
+ * While it runs, the {@link TaskScope scope} of the task is the current one, and
+ * once it has run, the permit of its {@link Bulkhead bulkhead} is released. If it's cancelled
+ * before running, or the executor gives up on it, the permit is released as well, and in
+ * the latter case the task finishes with the {@link RejectedExecutionException}.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+final class TaskFuture<V> extends FutureTask<V> implements Prioritized, Rejectable {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<TaskFuture> PERMIT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(TaskFuture.class, "permit");
+
+    private static final int NO_PERMIT = 0;
+    private static final int PERMIT = 1;
+    // Held by a future that has started running, which must keep it until it returns.
+    private static final int RUNNING_PERMIT = 2;
+
+    @Nullable
+    final Task owner;
+    private final long submitNanos = System.nanoTime();
+    private final long sequence = PriorityThreadPoolExecutor.nextSequence();
+    private volatile long priorityKey;
+    // When it started waiting for a permit of the bulkhead of its task.
+    long queuedNanos;
+    // Whether it holds a permit of the bulkhead of its task: NO_PERMIT, PERMIT or RUNNING_PERMIT.
+    private volatile int permit;
+
+    /**
+     * @param owner The task submitting this future, or {@code null} if it's
+     *              not going to be submitted to an executor.
+     */
+    TaskFuture(Callable<V> callable, @Nullable Task owner) {
+        super(callable);
+        this.owner = owner;
+        setPriority(owner != null ? owner.priority : TaskPriority.NORMAL);
+    }
+
+    TaskFuture(Runnable runnable, @Nullable Task owner) {
+        super(runnable, null);
+        this.owner = owner;
+        setPriority(owner != null ? owner.priority : TaskPriority.NORMAL);
+    }
+
+    /**
+     * Updates the key of this future. It keeps the original submission time, so a
+     * future which has been waiting for a while still benefits from aging.
+     */
+    void setPriority(TaskPriority priority) {
+        this.priorityKey = submitNanos + priority.agingNanos;
+    }
+
+    /**
+     * Called by the bulkhead of the task when it gives a permit to this future.
+     */
+    void acquirePermit() {
+        permit = PERMIT;
+    }
+
+    /**
+     * Gives the permit back to the bulkhead, if this future still holds it in the
+     * given state. Whatever the number of paths leading here, it's released only once.
+     */
+    private void releasePermit(int state) {
+        if (permit == state && PERMIT_UPDATER.compareAndSet(this, state, NO_PERMIT)) {
+            owner.bulkhead.release();
+        }
+    }
+
+    @Override
+    public void run() {
+        if (permit == NO_PERMIT || !PERMIT_UPDATER.compareAndSet(this, PERMIT, RUNNING_PERMIT)) {
+            // No permit, or it was released because this future was cancelled.
+            runScoped();
+            return;
+        }
+        try {
+            runScoped();
+        } finally {
+            releasePermit(RUNNING_PERMIT);
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled() && owner != null && owner.bulkhead != null) {
+            // It may still be waiting for a permit.
+            owner.bulkhead.remove(this);
+            // Or it may hold one without having run: executors are free to discard cancelled
+            // futures, and the ones returned by shutdownNow() are never run. A future cancelled
+            // while running keeps its permit until it returns.
+            releasePermit(PERMIT);
+        }
+    }
+
+    @Override
+    public void reject(@NonNull RejectedExecutionException e) {
+        final boolean cancelled = cancel(false);
+        // It's never going to run, even if it had already been cancelled.
+        releasePermit(PERMIT);
+        if (cancelled && owner != null) {
+            owner.postError(e);
+        }
+    }
+
+    private void runScoped() {
+        if (owner == null || owner.scope == null) {
+            runMeasured();
+            return;
+        }
+        // Tasks executed by this one join its scope.
+        Task previous = TaskScope.enter(owner);
+        try {
+            runMeasured();
+        } finally {
+            TaskScope.restore(previous);
+        }
+    }
+
+    private void runMeasured() {
+        TaskInstrumentation instrumentation = owner != null ? owner.instrumentation : null;
+        if (instrumentation == null || isDone()) {
+            super.run();
+            return;
+        }
+        long startNanos = System.nanoTime();
+        instrumentation.recordQueueWait(owner.getName(), startNanos - submitNanos);
+        super.run();
+        instrumentation.recordExecution(owner.getName(), System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public long getPriorityKey() {
+        return priorityKey;
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,45 @@
+package com.mardous.concurrency.task;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The priority of a {@link Task}.
+ *
+ * <p>Tasks waiting in one of the shared pools of {@link com.mardous.concurrency.TaskExecutors}
+ * are ordered by priority, with aging: each priority is allowed to jump ahead of lower ones
+ * only for a limited amount of time, so low priority work still runs eventually even when
+ * there is a constant flow of higher priority work.
+ *
+ * <p>The priority is also used to adjust the priority of the worker thread while the task runs.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ * @see TaskBuilder#priority(TaskPriority)
+ * @see Task#setPriority(TaskPriority)
+ */
+public enum TaskPriority {
+    /**
+     * Work the user is actively waiting for.
+     */
+    IMMEDIATE(0),
+    /**
+     * Work whose result will be visible soon, i.e. items about to scroll into view.
+     */
+    HIGH(50),
+    /**
+     * The default priority.
+     */
+    NORMAL(250),
+    /**
+     * Bulk work, such as prefetching, which can wait.
+     */
+    LOW(2000);
+
+    /**
+     * How long a task with this priority may be overtaken by tasks submitted after it.
+     */
+    final long agingNanos;
+
+    TaskPriority(long agingMillis) {
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+    }
+}
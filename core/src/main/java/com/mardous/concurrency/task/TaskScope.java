@@ -0,0 +1,236 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.Lifecycle;
+import com.mardous.concurrency.Utils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns a group of tasks, so they can be cancelled or waited for all at once.
+ *
+ * <p>A task joins the scope given to {@link TaskBuilder#scope(TaskScope)} when it's executed,
+ * and leaves it as soon as it finishes or is cancelled, so the scope only references tasks
+ * that are in flight. Tasks created while a task of the scope is running, either on its worker
+ * thread or from its callbacks, join the same scope unless they are given another one, and they
+ * are cancelled if that task has been cancelled by the time they're executed. This way the whole
+ * tree of tasks started from a screen can be cancelled in one operation.
+ *
+ * <p>A scope created with a {@link Lifecycle} is the only observer of that lifecycle for all of
+ * its tasks: when the lifecycle is destroyed, the scope is {@link #close() closed}.
+ *
+ * <pre>
+ * TaskScope scope = new TaskScope(getLifecycle());
+ *
+ * AsyncWorker.forResult(loadAlbums)
+ *     .scope(scope)
+ *     .execute();
+ * </pre>
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class TaskScope implements TaskLifecycleObserver {
+
+    private static final ThreadLocal<Task> CURRENT = new ThreadLocal<>();
+
+    private final Set<Task> tasks = new HashSet<>();
+    private Lifecycle lifecycle;
+    private boolean closed;
+    // Greater than zero while the tasks are being cancelled.
+    private int cancelling;
+
+    /**
+     * Creates a scope that is only closed by calling {@link #close()}.
+     */
+    public TaskScope() {
+    }
+
+    /**
+     * Creates a scope that is closed when the given lifecycle is destroyed.
+     *
+     * @param lifecycle The lifecycle to attach to.
+     */
+    @MainThread
+    public TaskScope(@NonNull Lifecycle lifecycle) {
+        Utils.assertNonNull(lifecycle, "Lifecycle");
+        this.lifecycle = lifecycle;
+        lifecycle.addObserver(this);
+    }
+
+    /**
+     * Gets the scoped task running on the calling thread, if any.
+     */
+    @Nullable
+    static Task currentTask() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the given scoped task the current one of the calling thread.
+     *
+     * @return The previous task, to be restored with {@link #restore(Task)}.
+     */
+    static Task enter(Task task) {
+        Task previous = CURRENT.get();
+        CURRENT.set(task);
+        return previous;
+    }
+
+    static void restore(@Nullable Task previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Adds a task that is being executed.
+     *
+     * @return {@code false} if this scope is closed or its tasks are being cancelled,
+     * so the task must be cancelled.
+     */
+    boolean add(Task task) {
+        synchronized (tasks) {
+            if (closed || cancelling > 0) {
+                return false;
+            }
+            tasks.add(task);
+            return true;
+        }
+    }
+
+    /**
+     * Removes a task that has finished or has been cancelled.
+     */
+    void remove(Task task) {
+        synchronized (tasks) {
+            if (tasks.remove(task) && tasks.isEmpty()) {
+                tasks.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tasks of this scope that are in flight.
+     */
+    public int getActiveCount() {
+        synchronized (tasks) {
+            return tasks.size();
+        }
+    }
+
+    /**
+     * Returns true if this scope has been closed.
+     */
+    public boolean isClosed() {
+        synchronized (tasks) {
+            return closed;
+        }
+    }
+
+    /**
+     * Cancels every task of this scope that is in flight, along with the tasks executed in this
+     * scope in the meantime. Unlike {@link #close()}, tasks can still be executed in this scope
+     * afterwards.
+     *
+     * @param mayInterruptIfRunning {@code true} if the threads executing the tasks
+     *                              should be interrupted
+     * @see Task#cancel(boolean)
+     */
+    @MainThread
+    public void cancelAll(boolean mayInterruptIfRunning) {
+        List<Task> snapshot;
+        synchronized (tasks) {
+            cancelling++;
+            snapshot = new ArrayList<>(tasks);
+        }
+        try {
+            for (Task task : snapshot) {
+                task.cancel(mayInterruptIfRunning);
+            }
+        } finally {
+            synchronized (tasks) {
+                cancelling--;
+            }
+        }
+    }
+
+    /**
+     * Cancels every task of this scope and stops observing the lifecycle, if any. Tasks
+     * executed in this scope afterwards are cancelled right away.
+     */
+    @MainThread
+    public void close() {
+        Lifecycle lifecycle;
+        synchronized (tasks) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lifecycle = this.lifecycle;
+            this.lifecycle = null;
+        }
+        if (lifecycle != null) {
+            lifecycle.removeObserver(this);
+        }
+        cancelAll(true);
+    }
+
+    /**
+     * Waits until every task of this scope has finished or has been cancelled, including
+     * the ones executed while waiting.
+     *
+     * <p>It only waits for the work of the tasks, not for their callbacks, which are
+     * delivered on the main thread afterwards.
+     *
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    @WorkerThread
+    public void joinAll() throws InterruptedException {
+        synchronized (tasks) {
+            while (!tasks.isEmpty()) {
+                tasks.wait();
+            }
+        }
+    }
+
+    /**
+     * Waits for at most the given time until every task of this scope has finished
+     * or has been cancelled.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the time unit of the timeout argument
+     * @return {@code true} if no task of this scope is in flight, {@code false}
+     * if the waiting time elapsed before
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     * @see #joinAll()
+     */
+    @WorkerThread
+    public boolean awaitAll(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + remainingNanos;
+        synchronized (tasks) {
+            while (!tasks.isEmpty()) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(tasks, remainingNanos);
+                remainingNanos = deadline - System.nanoTime();
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void onLifecycleDestroyed() {
+        close();
+    }
+}
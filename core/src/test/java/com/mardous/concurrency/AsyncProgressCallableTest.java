@@ -0,0 +1,141 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+import com.mardous.concurrency.task.ResultTask;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class AsyncProgressCallableTest {
+
+    private MainThreadDispatcher previousDispatcher;
+    private ExecutorService executor;
+    // The main thread is the test thread, which runs these actions when it's told to.
+    private final Queue<Runnable> posted = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> delayed = new ConcurrentLinkedQueue<>();
+    private volatile Thread mainThread;
+
+    @Before
+    public void setUp() {
+        mainThread = Thread.currentThread();
+        previousDispatcher = Platform.getMainThreadDispatcher();
+        Platform.setMainThreadDispatcher(new MainThreadDispatcher() {
+            @Override
+            public void post(@NonNull Runnable action) {
+                posted.add(action);
+            }
+
+            @Override
+            public void postDelayed(@NonNull Runnable action, long delayMillis) {
+                delayed.add(action);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThread;
+            }
+        });
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        Platform.setMainThreadDispatcher(previousDispatcher);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void conflatesUpdatesAndDeliversTheFinalValueBeforeTheResult() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch firstPhase = new CountDownLatch(1);
+        final CountDownLatch firstPhaseDone = new CountDownLatch(1);
+        final CountDownLatch secondPhase = new CountDownLatch(1);
+        final CountDownLatch secondPhaseDone = new CountDownLatch(1);
+        final CountDownLatch lastPhase = new CountDownLatch(1);
+        final List<String> delivered = new ArrayList<>();
+        ResultTask<String> task = AsyncWorker.forResult(new AsyncProgressCallable<String>(TimeUnit.MINUTES.toMillis(1)) {
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                firstPhase.await();
+                updateProgress(1, 10);
+                updateProgress(2, 10);
+                updateProgress(3, 10);
+                updateProgress(10, 10);
+                firstPhaseDone.countDown();
+                secondPhase.await();
+                updateProgress(5, 20);
+                updateProgress(6, 20);
+                secondPhaseDone.countDown();
+                lastPhase.await();
+                updateProgress(20, 20);
+                return "done";
+            }
+
+            @Override
+            public void onProgressUpdate(long progress, long max) {
+                delivered.add(progress + "/" + max);
+            }
+
+            @Override
+            public void onSuccess(String result) {
+                delivered.add(result);
+            }
+        }).using(executor).execute();
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        runPosted();
+        // Delivered right away by onPreExecute(), since nothing was delivered before.
+        assertEquals(Arrays.asList("0/0"), delivered);
+
+        firstPhase.countDown();
+        assertTrue(firstPhaseDone.await(5, TimeUnit.SECONDS));
+        runPosted();
+        // The first update waits for the interval and the others are conflated into it,
+        // but the final value is never held back.
+        assertEquals(Arrays.asList("0/0", "10/10"), delivered);
+        assertEquals(1, delayed.size());
+
+        secondPhase.countDown();
+        assertTrue(secondPhaseDone.await(5, TimeUnit.SECONDS));
+        runPosted();
+        // The delivery waiting for the interval is still the pending one.
+        assertEquals(Arrays.asList("0/0", "10/10"), delivered);
+        assertEquals(1, delayed.size());
+
+        delayed.poll().run();
+        runPosted();
+        assertEquals(Arrays.asList("0/0", "10/10", "6/20"), delivered);
+
+        lastPhase.countDown();
+        assertEquals("done", task.getResult(5, TimeUnit.SECONDS));
+        runPosted();
+        assertEquals(Arrays.asList("0/0", "10/10", "6/20", "20/20", "done"), delivered);
+        assertTrue(delayed.isEmpty());
+    }
+
+    private void runPosted() {
+        Runnable action;
+        while ((action = posted.poll()) != null) {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.mardous.concurrency;
+
+import com.mardous.concurrency.task.ResultTask;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class AsyncSplittableCallableTest {
+
+    @Test
+    public void invokeAllKeepsTheOrderOfTheParts() throws Exception {
+        final List<Callable<Integer>> parts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            final int value = i;
+            parts.add(() -> value);
+        }
+        ResultTask<List<Integer>> task = AsyncWorker.forResult(new AsyncSplittableCallable<List<Integer>>() {
+            @Override
+            public List<Integer> call() throws Exception {
+                return invokeAll(parts);
+            }
+        }).execute();
+
+        List<Integer> results = task.getResult(5, TimeUnit.SECONDS);
+        assertEquals(16, results.size());
+        for (int i = 0; i < 16; i++) {
+            assertEquals(Integer.valueOf(i), results.get(i));
+        }
+    }
+
+    @Test
+    public void invokeAllFailsWithoutWaitingForEarlierParts() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Callable<String>> parts = new ArrayList<>();
+        // Blocks until the end of the test, unless it's cancelled before it starts. The pool
+        // is told, so it can run the other parts meanwhile even with a single processor.
+        parts.add(() -> {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    release.await();
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return release.getCount() == 0;
+                }
+            });
+            return "slow";
+        });
+        parts.add(() -> {
+            throw new IllegalStateException("Failed");
+        });
+        parts.add(() -> "last");
+        try {
+            ResultTask<List<String>> task = AsyncWorker.forResult(new AsyncSplittableCallable<List<String>>() {
+                @Override
+                public List<String> call() throws Exception {
+                    return invokeAll(parts);
+                }
+            }).execute();
+            try {
+                task.getResult(5, TimeUnit.SECONDS);
+                fail("The failure of a part was not thrown");
+            } catch (ExecutionException e) {
+                assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+}
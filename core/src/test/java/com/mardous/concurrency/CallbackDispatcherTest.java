@@ -0,0 +1,124 @@
+package com.mardous.concurrency;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class CallbackDispatcherTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int ACTIONS_PER_PRODUCER = 20_000;
+
+    private MainThreadDispatcher previousDispatcher;
+    private ExecutorService mainThread;
+    private volatile Thread mainThreadInstance;
+
+    @Before
+    public void setUp() throws Exception {
+        previousDispatcher = Platform.getMainThreadDispatcher();
+        mainThread = Executors.newSingleThreadExecutor();
+        mainThread.submit(() -> mainThreadInstance = Thread.currentThread()).get();
+        Platform.setMainThreadDispatcher(new MainThreadDispatcher() {
+            @Override
+            public void post(@NonNull Runnable action) {
+                mainThread.execute(action);
+            }
+
+            @Override
+            public void postDelayed(@NonNull Runnable action, long delayMillis) {
+                mainThread.execute(action);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThreadInstance;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        Platform.setMainThreadDispatcher(previousDispatcher);
+        mainThread.shutdownNow();
+    }
+
+    @Test
+    public void keepsTheOrderOfEachProducer() throws Exception {
+        final CallbackDispatcher dispatcher = CallbackDispatcher.getInstance();
+        // Only touched on the main thread.
+        final int[] lastSeen = new int[PRODUCERS];
+        final List<String> errors = new ArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(PRODUCERS * ACTIONS_PER_PRODUCER);
+        final CountDownLatch go = new CountDownLatch(1);
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            producers[p] = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 1; i <= ACTIONS_PER_PRODUCER; i++) {
+                    final int sequence = i;
+                    dispatcher.dispatch(() -> {
+                        if (!Platform.getMainThreadDispatcher().isMainThread()) {
+                            errors.add("Delivered off the main thread");
+                        }
+                        if (lastSeen[producer] != sequence - 1) {
+                            errors.add("Producer " + producer + ": " + sequence + " after " + lastSeen[producer]);
+                        }
+                        lastSeen[producer] = sequence;
+                        delivered.countDown();
+                    });
+                }
+            });
+            producers[p].start();
+        }
+        go.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertTrue("Some actions were lost", delivered.await(10, TimeUnit.SECONDS));
+        mainThread.submit(() -> {
+        }).get();
+        assertEquals(new ArrayList<String>(), errors);
+        for (int p = 0; p < PRODUCERS; p++) {
+            assertEquals(ACTIONS_PER_PRODUCER, lastSeen[p]);
+        }
+    }
+
+    @Test
+    public void nodeCanBeDispatchedAgainOnceItHasRun() throws Exception {
+        final CountDownLatch runs = new CountDownLatch(3);
+        final CallbackDispatcher dispatcher = CallbackDispatcher.getInstance();
+        CallbackDispatcher.Node node = new CallbackDispatcher.Node() {
+            @Override
+            public void run() {
+                runs.countDown();
+                if (runs.getCount() > 0) {
+                    dispatcher.dispatch(this);
+                }
+            }
+        };
+        dispatcher.dispatch(node);
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+    }
+}
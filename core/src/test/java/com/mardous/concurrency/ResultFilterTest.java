@@ -0,0 +1,71 @@
+package com.mardous.concurrency;
+
+import com.mardous.concurrency.internal.Predicate;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class ResultFilterTest {
+
+    // One in every 256 tests is sampled, and the predicates are reordered every 16 samples.
+    private static final int TESTS_PER_REORDER = 256 * 16;
+
+    // Rejects odd numbers, which is half of them, and takes no time.
+    private final Predicate<Integer> cheap = value -> value % 2 == 0;
+    // Rejects multiples of 1000, which hardly ever happens, and takes a while.
+    private final Predicate<Integer> expensive = value -> {
+        long end = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(5);
+        while (System.nanoTime() < end) {
+            Thread.yield();
+        }
+        return value % 1000 != 0;
+    };
+
+    @Test
+    public void cheapSelectivePredicateMovesAheadAfterTheReorderInterval() {
+        ResultFilter<Integer> filter = new ResultFilter<>();
+        filter.add(expensive);
+        filter.add(cheap);
+
+        for (int i = 0; i < TESTS_PER_REORDER - 1; i++) {
+            filter.acceptable(i);
+        }
+        List<ResultFilter.Stats> stats = filter.getStats();
+        assertSame(expensive, stats.get(0).getPredicate());
+        assertEquals(15, stats.get(0).getSampleCount());
+
+        filter.acceptable(TESTS_PER_REORDER - 1);
+        stats = filter.getStats();
+        assertSame(cheap, stats.get(0).getPredicate());
+        assertSame(expensive, stats.get(1).getPredicate());
+        assertEquals(16, stats.get(0).getSampleCount());
+        assertTrue(stats.get(0).getRejectionRate() > stats.get(1).getRejectionRate());
+    }
+
+    @Test
+    public void acceptableDoesNotDependOnTheOrderOfThePredicates() {
+        ResultFilter<Integer> added = new ResultFilter<>();
+        added.add(expensive);
+        added.add(cheap);
+        ResultFilter<Integer> reversed = new ResultFilter<>();
+        reversed.add(cheap);
+        reversed.add(expensive);
+
+        // Covers the tests before and after the first filter is reordered, sampled or not.
+        for (int i = 0; i < TESTS_PER_REORDER * 2; i++) {
+            boolean expected = i % 2 == 0 && i % 1000 != 0;
+            assertEquals("Result " + i, expected, added.acceptable(i));
+            assertEquals("Result " + i, expected, reversed.acceptable(i));
+        }
+        assertSame(cheap, added.getStats().get(0).getPredicate());
+        assertSame(cheap, reversed.getStats().get(0).getPredicate());
+    }
+}
@@ -0,0 +1,112 @@
+package com.mardous.concurrency.internal;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.SaturationPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class AdaptiveThreadPoolExecutorTest {
+
+    private AdaptiveThreadPoolExecutor pool;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new AdaptiveThreadPoolExecutor(1, 1, 50, TimeUnit.MILLISECONDS, Executors.defaultThreadFactory());
+        pool.setSaturationPolicy(2, SaturationPolicy.DROP_OLDEST);
+        // Keeps the only thread busy, so everything else waits in the queue.
+        pool.execute(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void dropOldestDiscardsPlainRunnablesAndCountsThem() throws Exception {
+        final List<Integer> ran = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final int index = i;
+            pool.execute(() -> record(ran, index));
+        }
+        assertEquals(2, pool.getDroppedCount());
+
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        synchronized (ran) {
+            assertEquals(Arrays.asList(2, 3), ran);
+        }
+    }
+
+    @Test
+    public void dropOldestRejectsRejectableWork() {
+        final List<RejectedExecutionException> rejections = new ArrayList<>();
+        pool.execute(new RejectableEntry(rejections));
+        pool.execute(new RejectableEntry(rejections));
+        assertTrue(rejections.isEmpty());
+
+        pool.execute(new RejectableEntry(rejections));
+        assertEquals(1, rejections.size());
+        assertEquals(1, pool.getDroppedCount());
+    }
+
+    private static void record(List<Integer> ran, int index) {
+        synchronized (ran) {
+            ran.add(index);
+        }
+    }
+
+    private static final class RejectableEntry implements Runnable, Prioritized, Rejectable {
+        private final long sequence = PriorityThreadPoolExecutor.nextSequence();
+        private final List<RejectedExecutionException> rejections;
+
+        RejectableEntry(List<RejectedExecutionException> rejections) {
+            this.rejections = rejections;
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public long getPriorityKey() {
+            return sequence;
+        }
+
+        @Override
+        public long getSequence() {
+            return sequence;
+        }
+
+        @Override
+        public void reject(@NonNull RejectedExecutionException e) {
+            rejections.add(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.mardous.concurrency.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class PriorityThreadPoolExecutorTest {
+
+    private PriorityThreadPoolExecutor pool;
+
+    @Before
+    public void setUp() {
+        pool = new PriorityThreadPoolExecutor(1, 50, TimeUnit.MILLISECONDS, Executors.defaultThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void runsInPriorityOrder() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        final List<Integer> order = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(3);
+        long now = System.nanoTime();
+        pool.execute(new Entry(now + 300, () -> record(order, 3, done)));
+        pool.execute(new Entry(now + 100, () -> record(order, 1, done)));
+        pool.execute(new Entry(now + 200, () -> record(order, 2, done)));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        synchronized (order) {
+            assertEquals("[1, 2, 3]", order.toString());
+        }
+    }
+
+    @Test
+    public void reprioritizedEntryIsMovedAhead() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        final List<Integer> order = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(2);
+        long now = System.nanoTime();
+        pool.execute(new Entry(now + 100, () -> record(order, 1, done)));
+        Entry late = new Entry(now + 200, () -> record(order, 2, done));
+        pool.execute(late);
+
+        assertTrue(pool.reprioritize(late, () -> late.priorityKey = now));
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        synchronized (order) {
+            assertEquals("[2, 1]", order.toString());
+        }
+    }
+
+    @Test
+    public void reprioritizedEntryGetsAThreadAfterTheWorkersTimedOut() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        Entry entry = new Entry(System.nanoTime(), ran::countDown);
+        // Left in the queue with no thread to take it, as when the only worker times out
+        // while the entry is being moved.
+        pool.getQueue().offer(entry);
+        assertEquals(0, pool.getPoolSize());
+
+        assertTrue(pool.reprioritize(entry, () -> entry.priorityKey -= 1));
+        assertTrue("The entry never ran", ran.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void record(List<Integer> order, int value, CountDownLatch done) {
+        synchronized (order) {
+            order.add(value);
+        }
+        done.countDown();
+    }
+
+    private static final class Entry implements Runnable, Prioritized {
+        private final Runnable action;
+        private final long sequence = PriorityThreadPoolExecutor.nextSequence();
+        volatile long priorityKey;
+
+        Entry(long priorityKey, Runnable action) {
+            this.priorityKey = priorityKey;
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            action.run();
+        }
+
+        @Override
+        public long getPriorityKey() {
+            return priorityKey;
+        }
+
+        @Override
+        public long getSequence() {
+            return sequence;
+        }
+    }
+}
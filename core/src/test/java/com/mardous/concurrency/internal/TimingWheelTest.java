@@ -0,0 +1,143 @@
+package com.mardous.concurrency.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 5;
+    // A round of the wheel takes 8 ticks, 40 milliseconds.
+    private static final int TICKS_PER_WHEEL = 8;
+
+    private TimingWheel wheel;
+
+    @Before
+    public void setUp() {
+        wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL, "TimingWheelTest");
+    }
+
+    @Test
+    public void expiresAfterTheDelay() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        TimingWheel.Timeout timeout = wheel.schedule(ran::countDown, 30, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsedMillis(start) >= 30 - TICK_MILLIS);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        awaitPending(0);
+    }
+
+    @Test
+    public void expiresAfterSeveralRounds() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        // Lands on the same bucket as a 20ms delay, two rounds later.
+        wheel.schedule(ran::countDown, 100, TimeUnit.MILLISECONDS);
+
+        assertFalse("Expired on an earlier round", ran.await(60, TimeUnit.MILLISECONDS));
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsedMillis(start) >= 100 - TICK_MILLIS);
+    }
+
+    @Test
+    public void expiresInDeadlineOrder() throws Exception {
+        final List<Integer> order = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(3);
+        // Only the wheel thread touches the list.
+        wheel.schedule(() -> {
+            order.add(3);
+            done.countDown();
+        }, 90, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> {
+            order.add(1);
+            done.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> {
+            order.add(2);
+            done.countDown();
+        }, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("[1, 2, 3]", order.toString());
+    }
+
+    @Test
+    public void cancelledActionNeverRuns() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        TimingWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+        // The cancelled timeout is released before its bucket comes around.
+        awaitPending(0);
+        Thread.sleep(60);
+        assertEquals(0, runs.get());
+        assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    public void cancellingOneLeavesTheOthers() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final AtomicInteger cancelledRuns = new AtomicInteger();
+        TimingWheel.Timeout cancelled = wheel.schedule(cancelledRuns::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        wheel.schedule(ran::countDown, 20, TimeUnit.MILLISECONDS);
+        cancelled.cancel();
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(0, cancelledRuns.get());
+        awaitPending(0);
+    }
+
+    @Test
+    public void manualWheelOnlyMovesWhenAdvanced() {
+        TimingWheel manual = TimingWheel.manual(TICK_MILLIS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+        final List<Integer> order = new ArrayList<>();
+        manual.schedule(() -> order.add(2), 100, TimeUnit.MILLISECONDS);
+        manual.schedule(() -> order.add(1), 20, TimeUnit.MILLISECONDS);
+        TimingWheel.Timeout cancelled = manual.schedule(() -> order.add(0), 50, TimeUnit.MILLISECONDS);
+        cancelled.cancel();
+
+        assertEquals(0, manual.nanoTime());
+        manual.advance(95, TimeUnit.MILLISECONDS);
+        assertEquals("[1]", order.toString());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(95), manual.nanoTime());
+        manual.advance(10, TimeUnit.MILLISECONDS);
+        assertEquals("[1, 2]", order.toString());
+        assertEquals(0, manual.getPendingCount());
+
+        try {
+            wheel.advance(1, TimeUnit.MILLISECONDS);
+            fail("A wheel with a thread was advanced");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private void awaitPending(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (wheel.getPendingCount() != count && System.nanoTime() < deadline) {
+            Thread.sleep(TICK_MILLIS);
+        }
+        assertEquals(count, wheel.getPendingCount());
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,196 @@
+package com.mardous.concurrency.task;
+
+import com.mardous.concurrency.AsyncRunnable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.SaturationPolicy;
+import com.mardous.concurrency.internal.AdaptiveThreadPoolExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class BulkheadTest {
+
+    private static final AtomicInteger KEYS = new AtomicInteger();
+
+    private AdaptiveThreadPoolExecutor pool;
+    private String key;
+
+    @Before
+    public void setUp() {
+        pool = new AdaptiveThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, Executors.defaultThreadFactory());
+        key = "bulkhead-" + KEYS.incrementAndGet();
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void limitsConcurrencyAndHandsPermitsOver() throws Exception {
+        ExecutorService wide = Executors.newFixedThreadPool(4);
+        try {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger peak = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(10);
+            for (int i = 0; i < 10; i++) {
+                AsyncWorker.simpleTask(() -> {
+                    int current = running.incrementAndGet();
+                    peak.accumulateAndGet(current, Math::max);
+                    sleep(20);
+                    running.decrementAndGet();
+                    done.countDown();
+                }).using(wide).limitConcurrency(key, 2).execute();
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(2, peak.get());
+            Bulkhead.Stats stats = awaitIdle(Bulkhead.get(key));
+            assertEquals(10, stats.getAdmittedCount());
+            assertEquals(0, stats.getQueueLength());
+        } finally {
+            wide.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancelledWhileQueuedReleasesItsPermit() throws Exception {
+        CountDownLatch blocker = block();
+        Task queued = AsyncWorker.simpleTask(() -> {
+        }).using(pool).limitConcurrency(key, 1).execute();
+        Bulkhead bulkhead = Bulkhead.get(key);
+        assertEquals(1, bulkhead.getStats().getActiveCount());
+
+        queued.cancel(false);
+        assertEquals(0, bulkhead.getStats().getActiveCount());
+        blocker.countDown();
+        assertNextTaskRuns();
+    }
+
+    @Test
+    public void cancelledWhileRunningKeepsItsPermitUntilItReturns() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Task running = AsyncWorker.simpleTask(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        }).using(pool).limitConcurrency(key, 1).execute();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        running.cancel(false);
+        Bulkhead bulkhead = Bulkhead.get(key);
+        assertEquals(1, bulkhead.getStats().getActiveCount());
+        release.countDown();
+        assertEquals(0, awaitIdle(bulkhead).getActiveCount());
+    }
+
+    @Test
+    public void cancelledThenDroppedReleasesItsPermitOnce() throws Exception {
+        pool.setSaturationPolicy(1, SaturationPolicy.DROP_OLDEST);
+        CountDownLatch blocker = block();
+        Task queued = AsyncWorker.simpleTask(() -> {
+        }).using(pool).limitConcurrency(key, 1).execute();
+        queued.cancel(false);
+        // Drops the cancelled future from the queue.
+        AsyncWorker.simpleTask(() -> {
+        }).using(pool).execute();
+
+        assertEquals(0, Bulkhead.get(key).getStats().getActiveCount());
+        blocker.countDown();
+        assertNextTaskRuns();
+        assertEquals(0, awaitIdle(Bulkhead.get(key)).getActiveCount());
+    }
+
+    @Test
+    public void droppedTaskReleasesItsPermitAndFails() throws Exception {
+        pool.setSaturationPolicy(1, SaturationPolicy.DROP_OLDEST);
+        CountDownLatch blocker = block();
+        final CountDownLatch failed = new CountDownLatch(1);
+        AsyncWorker.simpleTask(new AsyncRunnable() {
+            @Override
+            public void run() {
+            }
+
+            @Override
+            protected void onError(Exception e) {
+                failed.countDown();
+            }
+        }).using(pool).limitConcurrency(key, 1).execute();
+        AsyncWorker.simpleTask(() -> {
+        }).using(pool).execute();
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, Bulkhead.get(key).getStats().getActiveCount());
+        blocker.countDown();
+        assertNextTaskRuns();
+    }
+
+    @Test
+    public void cancelledThenShutDownReleasesItsPermit() throws Exception {
+        CountDownLatch blocker = block();
+        Task queued = AsyncWorker.simpleTask(() -> {
+        }).using(pool).limitConcurrency(key, 1).execute();
+        queued.cancel(false);
+        pool.shutdownNow();
+        blocker.countDown();
+
+        assertEquals(0, Bulkhead.get(key).getStats().getActiveCount());
+        pool = new AdaptiveThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, Executors.defaultThreadFactory());
+        assertNextTaskRuns();
+    }
+
+    /**
+     * Occupies the only thread of the pool until the returned latch is released.
+     */
+    private CountDownLatch block() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private void assertNextTaskRuns() throws InterruptedException {
+        final CountDownLatch ran = new CountDownLatch(1);
+        AsyncWorker.simpleTask(ran::countDown).using(pool).limitConcurrency(key, 1).execute();
+        assertTrue("The next task of the bulkhead never ran", ran.await(5, TimeUnit.SECONDS));
+    }
+
+    private static Bulkhead.Stats awaitIdle(Bulkhead bulkhead) throws InterruptedException {
+        // The permit is released right after the work, on the worker thread.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Bulkhead.Stats stats = bulkhead.getStats();
+        while (stats.getActiveCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            stats = bulkhead.getStats();
+        }
+        return stats;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignored) {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mardous.concurrency.task;
+
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncFunction;
+import com.mardous.concurrency.AsyncWorker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class ComposedCallableTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void stageSharedByPipelinesSeesItsOwnTask() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Queue<Boolean> cancelled = new ConcurrentLinkedQueue<>();
+        ResultTaskBuilder<Boolean> stage = AsyncWorker.forResult(new AsyncCallable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                started.countDown();
+                release.await();
+                cancelled.add(isCancelled());
+                return isRunning();
+            }
+        });
+        stage.using(executor);
+        ResultTask<Boolean> first = stage.map(running -> running).execute();
+        ResultTask<Boolean> second = stage.map(running -> running).execute();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        first.cancel(false);
+        release.countDown();
+        assertTrue(second.getResult(5, TimeUnit.SECONDS));
+        assertTrue(first.isCancelled());
+        awaitSize(cancelled, 2);
+        assertTrue(cancelled.contains(true));
+        assertTrue(cancelled.contains(false));
+    }
+
+    @Test
+    public void stageIsNotBoundOutsideThePipeline() throws Exception {
+        final AsyncCallable<String> action = new AsyncCallable<String>() {
+            @Override
+            public String call() {
+                return isRunning() ? "bound" : "unbound";
+            }
+        };
+        ResultTaskBuilder<String> stage = AsyncWorker.forResult(action);
+        stage.using(executor);
+        assertEquals("bound", stage.map(value -> value).execute().getResult(5, TimeUnit.SECONDS));
+        assertFalse(((TaskConnection) action).isRunning());
+    }
+
+    @Test
+    public void timedOutPipelineCallsOnTimeout() throws Exception {
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        ResultTaskBuilder<String> stage = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                return "late";
+            }
+        });
+        stage.using(executor);
+        ResultTaskBuilder<String> pipeline = stage.map(new AsyncFunction<String, String>() {
+            @Override
+            public String apply(String value) {
+                return value;
+            }
+
+            @Override
+            protected void onTimeout() {
+                timedOut.countDown();
+            }
+
+            @Override
+            protected void onCancelled() {
+                cancelled.set(true);
+            }
+        });
+        pipeline.deadline(50, TimeUnit.MILLISECONDS);
+        ResultTask<String> task = pipeline.execute();
+        assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+        assertTrue(task.isCancelled());
+        assertFalse(cancelled.get());
+    }
+
+    @Test
+    public void cancellationReachesTheRunningStage() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch requested = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ResultTaskBuilder<String> stage = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                release.await();
+                return "value";
+            }
+
+            @Override
+            protected void onCancelRequested(boolean mayInterruptIfRunning) {
+                requested.countDown();
+                release.countDown();
+            }
+        });
+        stage.using(executor);
+        ResultTask<String> task = stage.map(value -> value).execute();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        task.cancel(false);
+        assertTrue(requested.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitSize(Queue<?> queue, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(size, queue.size());
+    }
+}
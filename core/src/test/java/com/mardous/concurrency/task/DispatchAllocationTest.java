@@ -0,0 +1,161 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.CallbackDispatcher;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the memory allocated by a whole task cycle (creation, execution and delivery of
+ * its callbacks) and by the dispatch of a callback, all of it on the calling thread, so it
+ * can be read from the thread's allocation counter. Skipped where the JVM has no such counter.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class DispatchAllocationTest {
+
+    // The task itself, its future and its two callback events take 296 bytes on a 64-bit
+    // HotSpot with compressed pointers. Wrapping each callback in a node takes it to 376.
+    private static final long MAX_BYTES_PER_CYCLE = 320;
+    private static final int WARM_UP_CYCLES = 200_000;
+    private static final int MEASURED_CYCLES = 200_000;
+
+    private MainThreadDispatcher previousDispatcher;
+
+    @Before
+    public void setUp() {
+        previousDispatcher = Platform.getMainThreadDispatcher();
+        Platform.setMainThreadDispatcher(new MainThreadDispatcher() {
+            @Override
+            public void post(@NonNull Runnable action) {
+                action.run();
+            }
+
+            @Override
+            public void postDelayed(@NonNull Runnable action, long delayMillis) {
+                action.run();
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return true;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        Platform.setMainThreadDispatcher(previousDispatcher);
+    }
+
+    @Test
+    public void cycleStaysWithinTheAllocationBudget() throws Exception {
+        final AllocationCounter counter = AllocationCounter.forCurrentThread();
+        if (counter == null) {
+            return;
+        }
+        final int[] delivered = {0};
+        ResultTaskBuilder<Integer> builder = AsyncWorker.forResult(new AsyncCallable<Integer>() {
+            @Override
+            public Integer call() {
+                return 42;
+            }
+
+            @Override
+            public void onSuccess(Integer result) {
+                delivered[0]++;
+            }
+        });
+        builder.using(Runnable::run);
+
+        for (int i = 0; i < WARM_UP_CYCLES; i++) {
+            builder.execute();
+        }
+        final long start = counter.get();
+        for (int i = 0; i < MEASURED_CYCLES; i++) {
+            builder.execute();
+        }
+        final long bytesPerCycle = (counter.get() - start) / MEASURED_CYCLES;
+
+        assertEquals(WARM_UP_CYCLES + MEASURED_CYCLES, delivered[0]);
+        assertTrue("A cycle allocated " + bytesPerCycle + " bytes", bytesPerCycle <= MAX_BYTES_PER_CYCLE);
+    }
+
+    @Test
+    public void dispatchingAnEventDoesNotAllocate() throws Exception {
+        final AllocationCounter counter = AllocationCounter.forCurrentThread();
+        if (counter == null) {
+            return;
+        }
+        final int[] delivered = {0};
+        final CallbackDispatcher.Node event = new CallbackDispatcher.Node() {
+            @Override
+            public void run() {
+                delivered[0]++;
+            }
+        };
+        final CallbackDispatcher dispatcher = CallbackDispatcher.getInstance();
+
+        for (int i = 0; i < WARM_UP_CYCLES; i++) {
+            dispatcher.dispatch(event);
+        }
+        final long start = counter.get();
+        for (int i = 0; i < MEASURED_CYCLES; i++) {
+            dispatcher.dispatch(event);
+        }
+        final long bytes = counter.get() - start;
+
+        assertEquals(WARM_UP_CYCLES + MEASURED_CYCLES, delivered[0]);
+        // Tolerates a few bytes allocated by the counter itself, but not one per dispatch.
+        assertTrue("Dispatching allocated " + bytes + " bytes", bytes < MEASURED_CYCLES);
+    }
+
+    /**
+     * Reads the allocation counter of the current thread. The counter is specific to
+     * HotSpot, so {@code com.sun.management.ThreadMXBean} is only looked up reflectively.
+     */
+    private static final class AllocationCounter {
+        private final ThreadMXBean bean;
+        private final Method allocatedBytes;
+        private final long threadId = Thread.currentThread().getId();
+
+        private AllocationCounter(ThreadMXBean bean, Method allocatedBytes) {
+            this.bean = bean;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        @Nullable
+        static AllocationCounter forCurrentThread() throws Exception {
+            final Class<?> hotSpotBean;
+            try {
+                hotSpotBean = Class.forName("com.sun.management.ThreadMXBean");
+            } catch (ClassNotFoundException | LinkageError e) {
+                return null;
+            }
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!hotSpotBean.isInstance(bean)
+                    || !(Boolean) hotSpotBean.getMethod("isThreadAllocatedMemorySupported").invoke(bean)
+                    || !(Boolean) hotSpotBean.getMethod("isThreadAllocatedMemoryEnabled").invoke(bean)) {
+                return null;
+            }
+            return new AllocationCounter(bean, hotSpotBean.getMethod("getThreadAllocatedBytes", long.class));
+        }
+
+        long get() throws Exception {
+            return (Long) allocatedBytes.invoke(bean, threadId);
+        }
+    }
+}
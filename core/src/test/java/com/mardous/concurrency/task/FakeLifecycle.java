@@ -0,0 +1,100 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.OnLifecycleEvent;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link Lifecycle} moved by hand, which calls the {@link OnLifecycleEvent}
+ * methods of its observers, including the ones declared by their interfaces.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+final class FakeLifecycle extends Lifecycle {
+
+    private final List<LifecycleObserver> observers = new ArrayList<>();
+    private State state = State.CREATED;
+
+    @Override
+    public void addObserver(@NonNull LifecycleObserver observer) {
+        observers.add(observer);
+        // Catches up with the current state, as the real registry does.
+        if (state.isAtLeast(State.STARTED)) {
+            dispatch(observer, Event.ON_START);
+        }
+    }
+
+    @Override
+    public void removeObserver(@NonNull LifecycleObserver observer) {
+        observers.remove(observer);
+    }
+
+    @NonNull
+    @Override
+    public State getCurrentState() {
+        return state;
+    }
+
+    int getObserverCount() {
+        return observers.size();
+    }
+
+    void start() {
+        moveTo(State.STARTED, Event.ON_START);
+    }
+
+    void stop() {
+        moveTo(State.CREATED, Event.ON_STOP);
+    }
+
+    void destroy() {
+        moveTo(State.DESTROYED, Event.ON_DESTROY);
+    }
+
+    private void moveTo(State state, Event event) {
+        this.state = state;
+        for (LifecycleObserver observer : new ArrayList<>(observers)) {
+            dispatch(observer, event);
+        }
+    }
+
+    private static void dispatch(Object observer, Event event) {
+        Set<String> called = new HashSet<>();
+        for (Class<?> type = observer.getClass(); type != null; type = type.getSuperclass()) {
+            List<Method> methods = new ArrayList<>();
+            for (Method method : type.getDeclaredMethods()) {
+                methods.add(method);
+            }
+            for (Class<?> anInterface : type.getInterfaces()) {
+                collectInterfaceMethods(anInterface, methods);
+            }
+            for (Method method : methods) {
+                OnLifecycleEvent annotation = method.getAnnotation(OnLifecycleEvent.class);
+                if (annotation != null && annotation.value() == event && called.add(method.getName())) {
+                    try {
+                        method.setAccessible(true);
+                        method.invoke(observer);
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void collectInterfaceMethods(Class<?> anInterface, List<Method> methods) {
+        for (Method method : anInterface.getDeclaredMethods()) {
+            methods.add(method);
+        }
+        for (Class<?> parent : anInterface.getInterfaces()) {
+            collectInterfaceMethods(parent, methods);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.mardous.concurrency.task;
+
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.internal.Predicate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class FileConstraintsTest {
+
+    private File root;
+    private File missing;
+    private File emptyFile;
+    private File smallFile;
+    private File largeFile;
+    private File emptyDirectory;
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("FileConstraintsTest").toFile();
+        missing = new File(root, "missing");
+        emptyFile = file("empty", 0);
+        smallFile = file("small", 5);
+        largeFile = file("large", 11);
+        emptyDirectory = new File(root, "emptyDirectory");
+        assertTrue(emptyDirectory.mkdir());
+        directory = new File(root, "directory");
+        assertTrue(directory.mkdir());
+        assertTrue(new File(directory, "child").createNewFile());
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void repeatedLengthsAreMergedIntoTheTightestBounds() throws IOException {
+        FileResultTaskBuilder builder = builder()
+                .acceptsMinimumLength(2)
+                .acceptsMinimumLength(5)
+                .acceptsMaximumLength(20)
+                .acceptsMaximumLength(10);
+        // Merged into a single predicate.
+        assertEquals(1, builder.resultFilter.getStats().size());
+
+        assertFalse(builder.resultFilter.acceptable(file("four", 4)));
+        assertTrue(builder.resultFilter.acceptable(smallFile));
+        assertTrue(builder.resultFilter.acceptable(file("ten", 10)));
+        assertFalse(builder.resultFilter.acceptable(largeFile));
+    }
+
+    @Test
+    public void mustBeEmptyDirectoryOnlyAcceptsEmptyDirectories() {
+        FileResultTaskBuilder builder = builder().mustBeEmptyDirectory(true);
+        assertTrue(builder.resultFilter.acceptable(emptyDirectory));
+        assertFalse(builder.resultFilter.acceptable(directory));
+        assertFalse(builder.resultFilter.acceptable(emptyFile));
+        assertFalse(builder.resultFilter.acceptable(missing));
+    }
+
+    @Test
+    public void missingFileHasNoTypeAndNoLength() {
+        assertFalse(builder().mustBeFile(true).resultFilter.acceptable(missing));
+        assertFalse(builder().mustBeDirectory(true).resultFilter.acceptable(missing));
+        assertFalse(builder().acceptsMinimumLength(1).resultFilter.acceptable(missing));
+        // Like File.length(), a missing file is seen as an empty one.
+        assertTrue(builder().acceptsMaximumLength(10).resultFilter.acceptable(missing));
+        assertTrue(builder().mustBeFile(false).resultFilter.acceptable(missing));
+    }
+
+    @Test
+    public void constraintsAcceptTheSameFilesAsOneFilterEach() {
+        List<File> files = Arrays.asList(missing, emptyFile, smallFile, largeFile, emptyDirectory, directory);
+        boolean[] flags = {false, true};
+        long[] minimums = {Long.MIN_VALUE, 0, 1, 5, 6};
+        long[] maximums = {Long.MAX_VALUE, 0, 5, 10};
+        for (boolean mustBeFile : flags) {
+            for (boolean mustBeDirectory : flags) {
+                for (boolean mustBeEmpty : flags) {
+                    for (long minimum : minimums) {
+                        for (long maximum : maximums) {
+                            FileConstraints constraints = new FileConstraints();
+                            constraints.mustBeFile = mustBeFile;
+                            constraints.mustBeDirectory = mustBeDirectory;
+                            constraints.mustBeEmptyDirectory = mustBeEmpty;
+                            constraints.minimumLength = minimum;
+                            constraints.maximumLength = maximum;
+                            List<Predicate<File>> filters =
+                                    filters(mustBeFile, mustBeDirectory, mustBeEmpty, minimum, maximum);
+                            for (File file : files) {
+                                assertEquals(file.getName() + " " + filters.size(),
+                                        acceptable(filters, file), constraints.test(file));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The filters the builder used to add, one for each constraint.
+     */
+    private static List<Predicate<File>> filters(boolean mustBeFile, boolean mustBeDirectory,
+                                                 boolean mustBeEmpty, long minimum, long maximum) {
+        List<Predicate<File>> filters = new ArrayList<>();
+        filters.add(file -> !mustBeFile || file.isFile());
+        filters.add(file -> !mustBeDirectory || file.isDirectory());
+        filters.add(file -> {
+            if (mustBeEmpty) {
+                String[] files = file.list();
+                if (files != null) {
+                    return files.length == 0;
+                }
+                return false;
+            }
+            return true;
+        });
+        if (minimum != Long.MIN_VALUE) {
+            filters.add(file -> file.length() >= minimum);
+        }
+        if (maximum != Long.MAX_VALUE) {
+            filters.add(file -> file.length() <= maximum);
+        }
+        return filters;
+    }
+
+    private static boolean acceptable(List<Predicate<File>> filters, File file) {
+        for (Predicate<File> filter : filters) {
+            if (!filter.test(file)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FileResultTaskBuilder builder() {
+        return AsyncWorker.forFile(new AsyncCallable<File>() {
+            @Override
+            public File call() {
+                return null;
+            }
+        });
+    }
+
+    private File file(String name, int length) throws IOException {
+        File file = new File(root, name);
+        Files.write(file.toPath(), new byte[length]);
+        return file;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,153 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class LifecycleBufferTest {
+
+    private MainThreadDispatcher previousDispatcher;
+    // The main thread is the test thread, which runs these actions when it's told to.
+    private final Queue<Runnable> posted = new ConcurrentLinkedQueue<>();
+    private volatile Thread mainThread;
+
+    private FakeLifecycle lifecycle;
+    // Only touched on the main thread.
+    private final List<String> delivered = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mainThread = Thread.currentThread();
+        previousDispatcher = Platform.getMainThreadDispatcher();
+        Platform.setMainThreadDispatcher(new MainThreadDispatcher() {
+            @Override
+            public void post(@NonNull Runnable action) {
+                posted.add(action);
+            }
+
+            @Override
+            public void postDelayed(@NonNull Runnable action, long delayMillis) {
+                posted.add(action);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThread;
+            }
+        });
+        lifecycle = new FakeLifecycle();
+    }
+
+    @After
+    public void tearDown() {
+        // Leaves no drain of the shared dispatcher pending on this main thread.
+        runPosted();
+        Platform.setMainThreadDispatcher(previousDispatcher);
+    }
+
+    @Test
+    public void resultIsHeldWhileStoppedAndFlushedOnceOnStart() {
+        task("result").execute();
+        runPosted();
+        assertTrue(delivered.isEmpty());
+
+        lifecycle.start();
+        assertEquals(Collections.singletonList("result"), delivered);
+
+        lifecycle.stop();
+        lifecycle.start();
+        runPosted();
+        assertEquals(Collections.singletonList("result"), delivered);
+    }
+
+    @Test
+    public void resultIsDeliveredRightAwayWhileStarted() {
+        lifecycle.start();
+        task("result").execute();
+        runPosted();
+        assertEquals(Collections.singletonList("result"), delivered);
+    }
+
+    @Test
+    public void keepLatestResultCollapsesHeldResultsByName() {
+        task("first").name("search").keepLatestResult(true).execute();
+        task("other").name("other").keepLatestResult(true).execute();
+        task("second").name("search").keepLatestResult(true).execute();
+        runPosted();
+        assertTrue(delivered.isEmpty());
+
+        lifecycle.start();
+        assertEquals(Arrays.asList("other", "second"), delivered);
+    }
+
+    @Test
+    public void deferredSubmissionsRunOnStart() {
+        final List<Runnable> submitted = new ArrayList<>();
+        task("result").using(submitted::add).deferWhileStopped(true).execute();
+        assertTrue(submitted.isEmpty());
+
+        lifecycle.start();
+        assertEquals(1, submitted.size());
+        submitted.get(0).run();
+        runPosted();
+        assertEquals(Collections.singletonList("result"), delivered);
+    }
+
+    @Test
+    public void bufferIsDiscardedOnDestroy() {
+        final List<Runnable> submitted = new ArrayList<>();
+        ResultTask<String> held = task("held").execute();
+        task("deferred").using(submitted::add).deferWhileStopped(true).execute();
+        runPosted();
+
+        lifecycle.destroy();
+        runPosted();
+        assertTrue(delivered.isEmpty());
+        assertTrue(submitted.isEmpty());
+        assertEquals(Task.State.FINISHED, held.getState());
+        // The tasks, including the cancelled one, have stopped observing the lifecycle.
+        // Only the buffer is left, which goes away along with it.
+        assertEquals(1, lifecycle.getObserverCount());
+    }
+
+    private ResultTaskBuilder<String> task(final String result) {
+        ResultTaskBuilder<String> builder = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() {
+                return result;
+            }
+
+            @Override
+            public void onSuccess(String result) {
+                delivered.add(result);
+            }
+        });
+        builder.using(Runnable::run).attachLifecycle(lifecycle);
+        return builder;
+    }
+
+    private void runPosted() {
+        Runnable action;
+        while ((action = posted.poll()) != null) {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.mardous.concurrency.task;
+
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.ResultCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class ResultTaskTest {
+
+    private static final AtomicInteger KEYS = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void resultIsNullUntilExecuted() throws Exception {
+        ResultTask<String> task = AsyncWorker.forResult(constant("value")).create();
+        assertNull(task.getResult());
+    }
+
+    @Test
+    public void resultWaitsForTheLastAttempt() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        ResultTask<Integer> task = AsyncWorker.forResult(new AsyncCallable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new IllegalStateException("Attempt " + attempts.get());
+                }
+                return attempts.get();
+            }
+        }).retry(new RetryPolicy.Builder().maxAttempts(3).backoff(20, 1, TimeUnit.MILLISECONDS).build())
+                .using(executor).execute();
+
+        assertEquals(Integer.valueOf(3), task.getResult(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void errorIsTheFinalOne() throws Exception {
+        ResultTask<String> task = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() {
+                throw new IllegalArgumentException("Failed");
+            }
+        }).retry(new RetryPolicy.Builder().maxAttempts(2).backoff(10, 1, TimeUnit.MILLISECONDS).build())
+                .using(executor).execute();
+
+        try {
+            task.getResult(5, TimeUnit.SECONDS);
+            fail("The error of the task was not thrown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void cancellationIsThrown() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        ResultTask<String> task = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                release.await();
+                return "value";
+            }
+        }).using(executor).execute();
+        task.cancel(true);
+        release.countDown();
+        try {
+            task.getResult(5, TimeUnit.SECONDS);
+            fail("The task was not cancelled");
+        } catch (CancellationException expected) {
+        }
+    }
+
+    @Test
+    public void cachedResultIsReturned() throws Exception {
+        final Object key = "cache-" + KEYS.incrementAndGet();
+        ResultCache cache = new ResultCache.Builder().maxEntries(16).build();
+        ResultTask<String> first = AsyncWorker.forResult(constant("value")).cacheKey(key, cache).execute();
+        assertEquals("value", first.getResult(5, TimeUnit.SECONDS));
+
+        ResultTask<String> second = AsyncWorker.forResult(constant("other")).cacheKey(key, cache).execute();
+        assertEquals("value", second.getResult(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void defaultCacheKeepsComputationsApart() throws Exception {
+        final Object key = "cache-" + KEYS.incrementAndGet();
+        ResultTask<String> text = AsyncWorker.forResult(constant("value")).cacheKey(key).execute();
+        assertEquals("value", text.getResult(5, TimeUnit.SECONDS));
+
+        ResultTask<Integer> number = AsyncWorker.forResult(new AsyncCallable<Integer>() {
+            @Override
+            public Integer call() {
+                return 42;
+            }
+        }).cacheKey(key).execute();
+        assertEquals(Integer.valueOf(42), number.getResult(5, TimeUnit.SECONDS));
+
+        ResultCache.getDefault().invalidate(key);
+        ResultTask<String> recomputed = AsyncWorker.forResult(constant("other")).cacheKey(key).execute();
+        assertEquals("other", recomputed.getResult(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void singleFlightSubscribersGetTheSharedResult() throws Exception {
+        final Object key = "flight-" + KEYS.incrementAndGet();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Object shared = new Object();
+        AsyncCallable<Object> action = new AsyncCallable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                calls.incrementAndGet();
+                release.await();
+                return shared;
+            }
+        };
+        ResultTask<Object> leader = AsyncWorker.forResult(action).singleFlight(key)
+                .using(executor).execute();
+        ResultTask<Object> follower = AsyncWorker.forResult(action).singleFlight(key)
+                .using(executor).execute();
+        release.countDown();
+
+        assertSame(shared, follower.getResult(5, TimeUnit.SECONDS));
+        assertSame(shared, leader.getResult(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void cancelledLeaderLeavesTheFlightRunning() throws Exception {
+        final Object key = "flight-" + KEYS.incrementAndGet();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger cancelledChecks = new AtomicInteger();
+        AsyncCallable<String> action = new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                release.await();
+                if (isCancelled()) {
+                    cancelledChecks.incrementAndGet();
+                }
+                return "shared";
+            }
+        };
+        ResultTask<String> leader = AsyncWorker.forResult(action).singleFlight(key)
+                .using(executor).execute();
+        ResultTask<String> follower = AsyncWorker.forResult(action).singleFlight(key)
+                .using(executor).execute();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        leader.cancel(false);
+        release.countDown();
+        assertEquals("shared", follower.getResult(5, TimeUnit.SECONDS));
+        assertEquals(0, cancelledChecks.get());
+        assertTrue(leader.isCancelled());
+    }
+
+    @Test
+    public void flightsAreOnlySharedByTheSameComputation() throws Exception {
+        final Object key = "flight-" + KEYS.incrementAndGet();
+        final CountDownLatch release = new CountDownLatch(1);
+        ResultTask<String> text = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                release.await();
+                return "value";
+            }
+        }).singleFlight(key).using(executor).execute();
+        ResultTask<Integer> number = AsyncWorker.forResult(new AsyncCallable<Integer>() {
+            @Override
+            public Integer call() {
+                return 42;
+            }
+        }).singleFlight(key).using(executor).execute();
+
+        assertEquals(Integer.valueOf(42), number.getResult(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals("value", text.getResult(5, TimeUnit.SECONDS));
+    }
+
+    private static AsyncCallable<String> constant(final String value) {
+        return new AsyncCallable<String>() {
+            @Override
+            public String call() {
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncStreamCallable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class StreamTaskTest {
+
+    private MainThreadDispatcher previousDispatcher;
+    private ExecutorService executor;
+    // The main thread is the test thread, which runs these actions when it's told to.
+    private final Queue<Runnable> posted = new ConcurrentLinkedQueue<>();
+    private volatile Thread mainThread;
+
+    @Before
+    public void setUp() {
+        mainThread = Thread.currentThread();
+        previousDispatcher = Platform.getMainThreadDispatcher();
+        Platform.setMainThreadDispatcher(new MainThreadDispatcher() {
+            @Override
+            public void post(@NonNull Runnable action) {
+                posted.add(action);
+            }
+
+            @Override
+            public void postDelayed(@NonNull Runnable action, long delayMillis) {
+                posted.add(action);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThread;
+            }
+        });
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        // Leaves no drain of the shared dispatcher pending on this main thread.
+        runPosted();
+        Platform.setMainThreadDispatcher(previousDispatcher);
+    }
+
+    @Test
+    public void suspendBlocksTheProducerUntilABatchIsDrained() throws Exception {
+        final Producer producer = new Producer(5);
+        StreamTask<Integer> task = AsyncWorker.forStream(producer)
+                .bufferSize(2)
+                .batchSize(2)
+                .onBackpressure(BackpressurePolicy.SUSPEND)
+                .using(executor)
+                .execute();
+
+        producer.awaitSuspended();
+        Thread.sleep(50);
+        // Still waiting for room, since nothing has been drained.
+        assertEquals(2, producer.emitted.get());
+        assertEquals(Thread.State.WAITING, producer.thread.getState());
+
+        runPosted();
+        assertEquals(Arrays.asList(0, 1), producer.batches.get(0));
+        // Each drained batch lets the producer go on.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (producer.emitted.get() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+            runPosted();
+        }
+
+        awaitProducer();
+        runPosted();
+        assertTrue(producer.completed);
+        List<Integer> delivered = new ArrayList<>();
+        for (List<Integer> batch : producer.batches) {
+            assertTrue(batch.size() <= 2);
+            delivered.addAll(batch);
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), delivered);
+        assertEquals(0, task.getDroppedCount());
+    }
+
+    @Test
+    public void dropOldestCountsTheDroppedItems() throws Exception {
+        final Producer producer = new Producer(5);
+        StreamTask<Integer> task = AsyncWorker.forStream(producer)
+                .bufferSize(2)
+                .onBackpressure(BackpressurePolicy.DROP_OLDEST)
+                .using(executor)
+                .execute();
+
+        awaitProducer();
+        runPosted();
+        assertEquals(Collections.singletonList(Arrays.asList(3, 4)), producer.batches);
+        assertEquals(3, task.getDroppedCount());
+        assertTrue(producer.completed);
+    }
+
+    @Test
+    public void dropLatestCountsTheDroppedItems() throws Exception {
+        final Producer producer = new Producer(5);
+        StreamTask<Integer> task = AsyncWorker.forStream(producer)
+                .bufferSize(2)
+                .onBackpressure(BackpressurePolicy.DROP_LATEST)
+                .using(executor)
+                .execute();
+
+        awaitProducer();
+        runPosted();
+        assertEquals(Collections.singletonList(Arrays.asList(0, 1)), producer.batches);
+        assertEquals(3, task.getDroppedCount());
+        assertTrue(producer.completed);
+    }
+
+    @Test
+    public void cancellationWakesTheSuspendedProducer() throws Exception {
+        final Producer producer = new Producer(5);
+        StreamTask<Integer> task = AsyncWorker.forStream(producer)
+                .bufferSize(1)
+                .onBackpressure(BackpressurePolicy.SUSPEND)
+                .using(executor)
+                .execute();
+
+        producer.awaitSuspended();
+        // Without interruption, so only the cancellation itself can wake the producer.
+        assertTrue(task.cancel(false));
+        awaitProducer();
+        assertTrue(producer.failure instanceof CancellationException);
+        assertEquals(1, producer.emitted.get());
+
+        runPosted();
+        assertTrue(producer.batches.isEmpty());
+        assertTrue(producer.cancelled);
+        assertFalse(producer.completed);
+    }
+
+    /**
+     * Waits for the producer to finish, along with everything it posts to the main thread.
+     */
+    private void awaitProducer() throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private void runPosted() {
+        Runnable action;
+        while ((action = posted.poll()) != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Emits the given number of items, from zero, and records what's delivered.
+     */
+    private static final class Producer extends AsyncStreamCallable<Integer> {
+        final int count;
+        final AtomicInteger emitted = new AtomicInteger();
+        volatile Thread thread;
+        volatile Exception failure;
+        // Only touched on the main thread.
+        final List<List<Integer>> batches = new ArrayList<>();
+        boolean completed;
+        boolean cancelled;
+
+        Producer(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void produce(@NonNull Emitter<Integer> emitter) throws Exception {
+            thread = Thread.currentThread();
+            try {
+                for (int i = 0; i < count; i++) {
+                    emitter.emit(i);
+                    emitted.incrementAndGet();
+                }
+            } catch (Exception e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public void onNext(@NonNull List<Integer> items) {
+            batches.add(new ArrayList<>(items));
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        @Override
+        protected void onCancelled() {
+            cancelled = true;
+        }
+
+        /**
+         * Waits for the producer to block on a full buffer.
+         */
+        void awaitSuspended() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (System.nanoTime() < deadline) {
+                Thread producer = thread;
+                if (producer != null && producer.getState() == Thread.State.WAITING) {
+                    return;
+                }
+                Thread.sleep(1);
+            }
+            throw new AssertionError("The producer was never suspended");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.internal.TimingWheel;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the windows of the slots with a manual timing wheel, and runs the tasks on the
+ * calling thread, so everything happens while the test advances the wheel.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class SwitchSlotTest {
+
+    private MainThreadDispatcher previousDispatcher;
+    // The main thread is the test thread, which runs these actions when it's told to.
+    private final Queue<Runnable> posted = new ConcurrentLinkedQueue<>();
+    private volatile Thread mainThread;
+    private TimingWheel wheel;
+
+    // Only touched on the main thread.
+    private final List<String> called = new ArrayList<>();
+    private final List<String> delivered = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mainThread = Thread.currentThread();
+        previousDispatcher = Platform.getMainThreadDispatcher();
+        Platform.setMainThreadDispatcher(new MainThreadDispatcher() {
+            @Override
+            public void post(@NonNull Runnable action) {
+                posted.add(action);
+            }
+
+            @Override
+            public void postDelayed(@NonNull Runnable action, long delayMillis) {
+                posted.add(action);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return Thread.currentThread() == mainThread;
+            }
+        });
+        wheel = TimingWheel.manual(1, TimeUnit.MILLISECONDS, 64);
+        SwitchSlot.timingWheel = wheel;
+    }
+
+    @After
+    public void tearDown() {
+        // Leaves no drain of the shared dispatcher pending on this main thread.
+        runPosted();
+        SwitchSlot.timingWheel = null;
+        Platform.setMainThreadDispatcher(previousDispatcher);
+    }
+
+    @Test
+    public void latestTaskSupersedesTheOneInFlight() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            ResultTaskBuilder<String> first = AsyncWorker.forResult(new AsyncCallable<String>() {
+                @Override
+                public String call() throws Exception {
+                    release.await();
+                    return "first";
+                }
+
+                @Override
+                public void onSuccess(String result) {
+                    delivered.add(result);
+                }
+            });
+            first.using(executor);
+            ResultTask<String> firstTask = first.switchSlot("inFlight").execute();
+
+            ResultTask<String> secondTask = task("second").switchSlot("inFlight").execute();
+            assertTrue(firstTask.isCancelled());
+            assertEquals("second", secondTask.getResult(5, TimeUnit.SECONDS));
+            release.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        runPosted();
+        assertEquals(Collections.singletonList("second"), delivered);
+    }
+
+    @Test
+    public void latestTaskDropsTheUndeliveredResultOfTheFinishedOne() {
+        ResultTask<String> first = task("first").switchSlot("finished").execute();
+        assertEquals(Task.State.FINISHED, first.getState());
+
+        // The result of the first task is still waiting for the main thread.
+        task("second").switchSlot("finished").execute();
+        runPosted();
+        assertEquals(Arrays.asList("first", "second"), called);
+        assertEquals(Collections.singletonList("second"), delivered);
+    }
+
+    @Test
+    public void debounceOnlyStartsTheLastTaskOfABurst() {
+        task("first").switchSlot("debounce").debounce(100, TimeUnit.MILLISECONDS).execute();
+        wheel.advance(50, TimeUnit.MILLISECONDS);
+        task("second").switchSlot("debounce").debounce(100, TimeUnit.MILLISECONDS).execute();
+        wheel.advance(50, TimeUnit.MILLISECONDS);
+        ResultTask<String> last = task("last").switchSlot("debounce").debounce(100, TimeUnit.MILLISECONDS).execute();
+
+        wheel.advance(99, TimeUnit.MILLISECONDS);
+        assertTrue(called.isEmpty());
+        wheel.advance(2, TimeUnit.MILLISECONDS);
+        assertEquals(Collections.singletonList("last"), called);
+        assertEquals(Task.State.FINISHED, last.getState());
+
+        runPosted();
+        assertEquals(Collections.singletonList("last"), delivered);
+    }
+
+    @Test
+    public void throttleSpacesTheStartsOfTheTasks() {
+        task("first").switchSlot("throttle").throttle(100, TimeUnit.MILLISECONDS).execute();
+        assertEquals(Collections.singletonList("first"), called);
+        runPosted();
+
+        wheel.advance(30, TimeUnit.MILLISECONDS);
+        task("second").switchSlot("throttle").throttle(100, TimeUnit.MILLISECONDS).execute();
+        wheel.advance(60, TimeUnit.MILLISECONDS);
+        assertEquals(Collections.singletonList("first"), called);
+        // Starts 100 milliseconds after the first one did.
+        wheel.advance(11, TimeUnit.MILLISECONDS);
+        assertEquals(Arrays.asList("first", "second"), called);
+
+        runPosted();
+        assertEquals(Arrays.asList("first", "second"), delivered);
+    }
+
+    @Test
+    public void slotIsReusableOnceTheThrottleWindowExpires() {
+        task("first").switchSlot("expire").throttle(100, TimeUnit.MILLISECONDS).execute();
+        runPosted();
+        wheel.advance(101, TimeUnit.MILLISECONDS);
+
+        // No window left to wait for.
+        task("second").switchSlot("expire").throttle(100, TimeUnit.MILLISECONDS).execute();
+        assertEquals(Arrays.asList("first", "second"), called);
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    private ResultTaskBuilder<String> task(final String name) {
+        ResultTaskBuilder<String> builder = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() {
+                called.add(name);
+                return name;
+            }
+
+            @Override
+            public void onSuccess(String result) {
+                delivered.add(result);
+            }
+        });
+        builder.using(Runnable::run);
+        return builder;
+    }
+
+    private void runPosted() {
+        Runnable action;
+        while ((action = posted.poll()) != null) {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.mardous.concurrency.task;
+
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncWorker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class TaskScopeTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void cancelAllCancelsTheTasksInFlight() throws Exception {
+        TaskScope scope = new TaskScope();
+        CountDownLatch release = new CountDownLatch(1);
+        ResultTask<String> first = blocking(release).scope(scope).execute();
+        ResultTask<String> second = blocking(release).scope(scope).execute();
+        assertEquals(2, scope.getActiveCount());
+
+        scope.cancelAll(true);
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+        assertTrue(scope.awaitAll(5, TimeUnit.SECONDS));
+        assertEquals(0, scope.getActiveCount());
+
+        // The scope is still usable.
+        assertFalse(scope.isClosed());
+        ResultTask<String> next = blocking(new CountDownLatch(0)).scope(scope).execute();
+        assertEquals("done", next.getResult(5, TimeUnit.SECONDS));
+        assertTrue(scope.awaitAll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void joinAllWaitsForEveryTask() throws Exception {
+        final TaskScope scope = new TaskScope();
+        CountDownLatch release = new CountDownLatch(1);
+        blocking(release).scope(scope).execute();
+        blocking(release).scope(scope).execute();
+        assertFalse(scope.awaitAll(50, TimeUnit.MILLISECONDS));
+
+        final CountDownLatch joined = new CountDownLatch(1);
+        Thread joiner = new Thread(() -> {
+            try {
+                scope.joinAll();
+                joined.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        joiner.start();
+        assertFalse(joined.await(50, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(joined.await(5, TimeUnit.SECONDS));
+        assertEquals(0, scope.getActiveCount());
+        joiner.join();
+    }
+
+    @Test
+    public void childTasksJoinTheScopeOfTheirParent() throws Exception {
+        final TaskScope scope = new TaskScope();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch childStarted = new CountDownLatch(1);
+        final AtomicReference<ResultTask<String>> child = new AtomicReference<>();
+        ResultTask<String> parent = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                // No scope given: it joins the one of this task.
+                child.set(blocking(release).execute());
+                childStarted.countDown();
+                release.await();
+                return "parent";
+            }
+        }).using(executor).scope(scope).execute();
+
+        assertTrue(childStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(2, scope.getActiveCount());
+
+        scope.cancelAll(true);
+        assertTrue(parent.isCancelled());
+        assertTrue(child.get().isCancelled());
+        assertTrue(scope.awaitAll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void childOfACancelledTaskIsCancelled() throws Exception {
+        final TaskScope scope = new TaskScope();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch childExecuted = new CountDownLatch(1);
+        final AtomicReference<ResultTask<String>> child = new AtomicReference<>();
+        ResultTask<String> parent = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                release.await();
+                child.set(blocking(new CountDownLatch(0)).execute());
+                childExecuted.countDown();
+                return "parent";
+            }
+        }).using(executor).scope(scope).execute();
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Without interruption, so the parent goes on and executes the child.
+        assertTrue(parent.cancel(false));
+        release.countDown();
+        assertTrue(childExecuted.await(5, TimeUnit.SECONDS));
+        assertNotNull(child.get());
+        assertTrue(child.get().isCancelled());
+        assertTrue(scope.awaitAll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void lifecycleDestroyClosesTheScope() throws Exception {
+        FakeLifecycle lifecycle = new FakeLifecycle();
+        TaskScope scope = new TaskScope(lifecycle);
+        ResultTask<String> task = blocking(new CountDownLatch(1)).scope(scope).execute();
+        assertEquals(1, lifecycle.getObserverCount());
+
+        lifecycle.destroy();
+        assertTrue(scope.isClosed());
+        assertTrue(task.isCancelled());
+        assertEquals(0, lifecycle.getObserverCount());
+        assertTrue(scope.awaitAll(5, TimeUnit.SECONDS));
+
+        // Tasks executed in a closed scope are cancelled right away.
+        ResultTask<String> late = blocking(new CountDownLatch(1)).scope(scope).execute();
+        assertTrue(late.isCancelled());
+        assertEquals(0, scope.getActiveCount());
+    }
+
+    private ResultTaskBuilder<String> blocking(final CountDownLatch release) {
+        ResultTaskBuilder<String> builder = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                release.await();
+                return "done";
+            }
+        });
+        builder.using(executor);
+        return builder;
+    }
+}
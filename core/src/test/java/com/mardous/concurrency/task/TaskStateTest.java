@@ -0,0 +1,223 @@
+package com.mardous.concurrency.task;
+
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.AsyncCallable;
+import com.mardous.concurrency.AsyncWorker;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+import com.mardous.concurrency.spi.Platform;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public class TaskStateTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void transitions() {
+        assertTrue(Task.State.IDLE.canMoveTo(Task.State.RUNNING));
+        assertTrue(Task.State.IDLE.canMoveTo(Task.State.CANCELLED));
+        assertFalse(Task.State.IDLE.canMoveTo(Task.State.FINISHED));
+        assertTrue(Task.State.RUNNING.canMoveTo(Task.State.FINISHED));
+        assertTrue(Task.State.RUNNING.canMoveTo(Task.State.CANCELLED));
+        assertFalse(Task.State.RUNNING.canMoveTo(Task.State.RUNNING));
+        for (Task.State state : Task.State.values()) {
+            assertFalse(Task.State.FINISHED.canMoveTo(state));
+            assertFalse(Task.State.CANCELLED.canMoveTo(state));
+        }
+    }
+
+    @Test
+    public void executingTwiceFails() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        ResultTask<String> task = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() throws Exception {
+                release.await();
+                return "value";
+            }
+        }).using(executor).create();
+        task.execute();
+        try {
+            task.execute();
+            fail("A running task was executed again");
+        } catch (IllegalStateException expected) {
+        }
+        release.countDown();
+        assertEquals("value", task.getResult(5, TimeUnit.SECONDS));
+        try {
+            task.execute();
+            fail("A finished task was executed again");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(Task.State.FINISHED, task.getState());
+    }
+
+    @Test
+    public void cancelledTaskCannotBeExecuted() {
+        ResultTask<String> task = AsyncWorker.forResult(new AsyncCallable<String>() {
+            @Override
+            public String call() {
+                return "value";
+            }
+        }).using(executor).create();
+        assertTrue(task.cancel(false));
+        assertEquals(Task.State.CANCELLED, task.getState());
+        try {
+            task.execute();
+            fail("A cancelled task was executed");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void cancellationRacingCompletionHasOneOutcome() throws Exception {
+        final int rounds = 500;
+        final AtomicInteger successes = new AtomicInteger();
+        final AtomicInteger cancellations = new AtomicInteger();
+        final AtomicInteger finishes = new AtomicInteger();
+        final CountDownLatch finished = new CountDownLatch(rounds);
+        for (int i = 0; i < rounds; i++) {
+            final CountDownLatch started = new CountDownLatch(1);
+            ResultTask<Integer> task = AsyncWorker.forResult(new AsyncCallable<Integer>() {
+                @Override
+                public Integer call() {
+                    started.countDown();
+                    return 1;
+                }
+
+                @Override
+                public void onSuccess(Integer result) {
+                    successes.incrementAndGet();
+                }
+
+                @Override
+                protected void onCancelled() {
+                    cancellations.incrementAndGet();
+                }
+
+                @Override
+                protected void onFinished() {
+                    finishes.incrementAndGet();
+                    finished.countDown();
+                }
+            }).using(executor).execute();
+            started.await();
+            // Races with the worker thread posting the result.
+            boolean cancelled = task.cancel(false);
+            assertEquals(cancelled, task.getState() == Task.State.CANCELLED);
+        }
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        // Gives late duplicates, if any, a chance to show up.
+        Thread.sleep(50);
+        assertEquals(rounds, finishes.get());
+        assertEquals(rounds, successes.get() + cancellations.get());
+    }
+
+    @Test
+    public void cancellationRacingExecutionNeverStartsAfterFinishing() throws Exception {
+        final int rounds = 20_000;
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        final ExecutorService mainThread = Executors.newSingleThreadExecutor();
+        final MainThreadDispatcher previousDispatcher = Platform.getMainThreadDispatcher();
+        // Keeps the main thread alive if a callback throws, and records the error.
+        Platform.setMainThreadDispatcher(new MainThreadDispatcher() {
+            @Override
+            public void post(@NonNull Runnable action) {
+                mainThread.execute(() -> {
+                    try {
+                        action.run();
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                });
+            }
+
+            @Override
+            public void postDelayed(@NonNull Runnable action, long delayMillis) {
+                post(action);
+            }
+
+            @Override
+            public boolean isMainThread() {
+                return false;
+            }
+        });
+        try {
+            final AtomicInteger finishes = new AtomicInteger();
+            final AtomicInteger lateStarts = new AtomicInteger();
+            final CountDownLatch finished = new CountDownLatch(rounds);
+            for (int i = 0; i < rounds; i++) {
+                // Only touched on the main thread.
+                final boolean[] done = new boolean[1];
+                final ResultTask<Integer> task = AsyncWorker.forResult(new AsyncCallable<Integer>() {
+                    @Override
+                    protected void onPreExecute() {
+                        if (done[0]) {
+                            lateStarts.incrementAndGet();
+                        }
+                    }
+
+                    @Override
+                    public Integer call() {
+                        return 1;
+                    }
+
+                    @Override
+                    protected void onFinished() {
+                        done[0] = true;
+                        finishes.incrementAndGet();
+                        finished.countDown();
+                    }
+                }).using(executor).create();
+                Future<?> cancellation = executor.submit(() -> {
+                    // Cancels as soon as the task starts, racing the post of its start event.
+                    while (task.getState() == Task.State.IDLE) {
+                        Thread.yield();
+                    }
+                    task.cancel(true);
+                });
+                task.execute();
+                cancellation.get();
+            }
+
+            assertTrue(finished.await(30, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            assertNull(errors.peek());
+            assertEquals(0, lateStarts.get());
+            assertEquals(rounds, finishes.get());
+        } finally {
+            Platform.setMainThreadDispatcher(previousDispatcher);
+            mainThread.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+# The adapters are found through java.util.ServiceLoader, which reads their names from
+# META-INF/services and creates them by reflection.
+-keepnames interface com.mardous.concurrency.spi.MainThreadDispatcher
+-keepnames interface com.mardous.concurrency.spi.WorkerThreadController
+-keep class com.mardous.concurrency.android.AndroidMainThreadDispatcher {
+    public <init>();
+}
+-keep class com.mardous.concurrency.android.AndroidWorkerThreadController {
+    public <init>();
+}
+
+# The CPU clock of core's Platform only reads java.lang.management on the JVM. It doesn't
+# exist on Android, where the clock is never used, so it's only missing at build time.
+-dontwarn java.lang.management.**
@@ -8,13 +8,25 @@ import android.os.Looper;
  */
 public final class Handlers {
 
+    private static volatile Handler mainThreadHandler;
+
     /**
-     * Creates a new {@link Handler} bound to the main thread.
+     * Gets the shared {@link Handler} bound to the main thread.
+     * It is created the first time this method is called.
      *
-     * @return the created thread.
+     * @return the main thread handler.
      */
     public static Handler forMainThread() {
-        return new Handler(Looper.getMainLooper());
+        Handler handler = mainThreadHandler;
+        if (handler == null) {
+            synchronized (Handlers.class) {
+                handler = mainThreadHandler;
+                if (handler == null) {
+                    mainThreadHandler = handler = new Handler(Looper.getMainLooper());
+                }
+            }
+        }
+        return handler;
     }
 
     /**
@@ -28,8 +40,8 @@ public final class Handlers {
     }
 
     /**
-     * Creates a new {@link Handler} bound to the main thread
-     * and uses it to post an action.
+     * Uses the shared {@link Handler} bound to the main thread
+     * to post an action.
      *
      * @param runnable The action to post.
      */
@@ -38,8 +50,8 @@ public final class Handlers {
     }
 
     /**
-     * Creates a new {@link Handler} bound to the main thread
-     * and uses it to post an action after some amount of time.
+     * Uses the shared {@link Handler} bound to the main thread
+     * to post an action after some amount of time.
      *
      * @param runnable The action to post.
      * @param delayMs The amount of milliseconds to wait before
@@ -0,0 +1,31 @@
+package com.mardous.concurrency.android;
+
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.Handlers;
+import com.mardous.concurrency.spi.MainThreadDispatcher;
+
+/**
+ * A {@link MainThreadDispatcher} backed by the main {@link Looper}.
+ *
+ * <p>It's registered automatically, so there is no need to install it by hand.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class AndroidMainThreadDispatcher implements MainThreadDispatcher {
+
+    @Override
+    public void post(@NonNull Runnable action) {
+        Handlers.postMainThread(action);
+    }
+
+    @Override
+    public void postDelayed(@NonNull Runnable action, long delayMillis) {
+        Handlers.postDelayedMainThread(action, delayMillis);
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+}
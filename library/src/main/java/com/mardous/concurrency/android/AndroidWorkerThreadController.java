@@ -0,0 +1,52 @@
+package com.mardous.concurrency.android;
+
+import android.os.Binder;
+import android.os.Debug;
+import android.os.Process;
+import androidx.annotation.NonNull;
+import com.mardous.concurrency.spi.WorkerThreadController;
+import com.mardous.concurrency.task.TaskPriority;
+
+/**
+ * A {@link WorkerThreadController} that runs tasks with a thread priority matching
+ * their {@link TaskPriority} and flushes pending Binder commands once they're done. The CPU
+ * time of worker threads is read from {@link Debug#threadCpuTimeNanos()}.
+ *
+ * <p>{@link TaskPriority#NORMAL Normal} tasks run with a background priority, so they
+ * don't compete with the UI thread; only {@link TaskPriority#IMMEDIATE immediate} tasks
+ * run with the default priority.
+ *
+ * <p>It's registered automatically, so there is no need to install it by hand.
+ *
+ * @author Christians Martínez Alvarado (mardous)
+ */
+public final class AndroidWorkerThreadController implements WorkerThreadController {
+
+    @Override
+    public void onWorkerStart(@NonNull TaskPriority priority) {
+        switch (priority) {
+            case IMMEDIATE:
+                Process.setThreadPriority(Process.THREAD_PRIORITY_DEFAULT);
+                break;
+            case HIGH:
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND + 2 * Process.THREAD_PRIORITY_MORE_FAVORABLE);
+                break;
+            case LOW:
+                Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+                break;
+            default:
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                break;
+        }
+    }
+
+    @Override
+    public void onWorkerFinish() {
+        Binder.flushPendingCommands();
+    }
+
+    @Override
+    public long currentThreadCpuTimeNanos() {
+        return Debug.threadCpuTimeNanos();
+    }
+}